@@ -0,0 +1,316 @@
+package com.openclassrooms.mddapi.cache;
+
+import com.openclassrooms.mddapi.model.User;
+import com.openclassrooms.mddapi.repository.UserRepository;
+import com.openclassrooms.mddapi.security.AuthenticatedUser;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, expiring cache of authenticated principals, keyed by user identifier.
+ *
+ * <p>
+ * Used by the JWT filter when {@code mdd.auth.principal-source=cache}, in place of
+ * a database lookup on every request:
+ * <ul>
+ *     <li>At most {@code mdd.auth.principal-cache.max-size} principals are kept,
+ *     the one loaded first being evicted first</li>
+ *     <li>An entry expires {@code mdd.auth.principal-cache.ttl-seconds} after being loaded</li>
+ *     <li>Concurrent misses for the same user are coalesced into a single database load</li>
+ *     <li>Entries are evicted when a user changes their username, email or password</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Lookups take no lock: principals are held in a {@link ConcurrentHashMap}, and a queue
+ * of the principals in load order lets the oldest one be evicted in constant time.
+ * </p>
+ *
+ * <p>
+ * Hits, misses and load times are published as the {@code mdd.auth.principal.cache.requests}
+ * and {@code mdd.auth.principal.cache.load} metrics. The cache is local to the node.
+ * </p>
+ */
+@Component
+public class PrincipalCache {
+
+    private final UserRepository userRepository;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final ConcurrentHashMap<Long, CachedPrincipal> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<CachedPrincipal> order = new ConcurrentLinkedQueue<>();
+    private final ConcurrentHashMap<Long, CompletableFuture<AuthenticatedUser>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Number of principals in {@link #entries}.
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Approximate number of principals in {@link #order}, including those already
+     * replaced or removed; recomputed by each purge.
+     */
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean purging = new AtomicBoolean();
+
+    /**
+     * Incremented on every invalidation, so that a load started before an
+     * invalidation does not store a stale principal.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Timer loadTimer;
+
+    /**
+     * Constructs a {@link PrincipalCache}.
+     *
+     * @param userRepository repository used to load users on a miss
+     * @param meterRegistry  registry publishing the cache statistics
+     * @param maxSize        maximum number of cached principals
+     * @param ttlSeconds     lifetime of a cached principal
+     */
+    public PrincipalCache(
+            UserRepository userRepository,
+            MeterRegistry meterRegistry,
+            @Value("${mdd.auth.principal-cache.max-size:10000}") int maxSize,
+            @Value("${mdd.auth.principal-cache.ttl-seconds:300}") long ttlSeconds
+    ) {
+        this.userRepository = userRepository;
+        this.maxSize = Math.max(1, maxSize);
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+
+        FunctionCounter.builder("mdd.auth.principal.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("mdd.auth.principal.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(meterRegistry);
+
+        this.loadTimer = Timer.builder("mdd.auth.principal.cache.load")
+                .description("Time spent loading principals from the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the principal of a user, loading it from the database on a miss.
+     *
+     * @param userId the identifier of the user
+     * @return the {@link AuthenticatedUser}, or {@code null} if the user does not exist
+     */
+    public AuthenticatedUser get(Long userId) {
+
+        CachedPrincipal cached = lookup(userId);
+
+        if (cached != null) {
+            hits.increment();
+            return cached.principal;
+        }
+
+        misses.increment();
+
+        CompletableFuture<AuthenticatedUser> pending = new CompletableFuture<>();
+        CompletableFuture<AuthenticatedUser> existing = loading.putIfAbsent(userId, pending);
+
+        if (existing != null) {
+            return join(existing);
+        }
+
+        try {
+            long invalidationsBefore = invalidations.get();
+            AuthenticatedUser principal = loadTimer.record(() -> load(userId));
+
+            if (principal != null) {
+                store(userId, principal, invalidationsBefore);
+            }
+
+            pending.complete(principal);
+            return principal;
+
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(userId, pending);
+        }
+    }
+
+    /**
+     * Evicts the principal of a user.
+     *
+     * @param userId the identifier of the user
+     */
+    public void invalidate(Long userId) {
+
+        invalidations.incrementAndGet();
+
+        if (entries.remove(userId) != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns a snapshot of the cache statistics.
+     *
+     * @return the current {@link Stats}
+     */
+    public Stats stats() {
+
+        return new Stats(
+                hits.sum(),
+                misses.sum(),
+                loadTimer.count(),
+                (long) loadTimer.totalTime(TimeUnit.NANOSECONDS),
+                size.get()
+        );
+    }
+
+    private CachedPrincipal lookup(Long userId) {
+
+        CachedPrincipal cached = entries.get(userId);
+
+        if (cached != null && System.nanoTime() - cached.loadedAt > ttlNanos) {
+            if (entries.remove(userId, cached)) {
+                size.decrementAndGet();
+            }
+            return null;
+        }
+
+        return cached;
+    }
+
+    /**
+     * Stores a loaded principal, unless a user was invalidated since the load started.
+     *
+     * <p>
+     * The invalidation counter is checked again once stored: an invalidation running
+     * concurrently either sees the new principal and removes it, or is seen here.
+     * </p>
+     */
+    private void store(Long userId, AuthenticatedUser principal, long invalidationsBefore) {
+
+        if (invalidations.get() != invalidationsBefore) {
+            return;
+        }
+
+        CachedPrincipal cached = new CachedPrincipal(userId, principal, System.nanoTime());
+
+        if (entries.put(userId, cached) == null) {
+            size.incrementAndGet();
+        }
+
+        if (invalidations.get() != invalidationsBefore && entries.remove(userId, cached)) {
+            size.decrementAndGet();
+            return;
+        }
+
+        order.add(cached);
+
+        if (queued.incrementAndGet() > 2 * maxSize && purging.compareAndSet(false, true)) {
+            try {
+                purgeOrder();
+            } finally {
+                purging.set(false);
+            }
+        }
+
+        while (size.get() > maxSize && evictOldest()) {
+            // Evict until back under the maximum size.
+        }
+    }
+
+    /**
+     * Removes the oldest principal still cached.
+     *
+     * @return {@code false} if there was none
+     */
+    private boolean evictOldest() {
+
+        CachedPrincipal oldest;
+
+        while ((oldest = order.poll()) != null) {
+
+            queued.decrementAndGet();
+
+            if (entries.remove(oldest.userId, oldest)) {
+                size.decrementAndGet();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Drops from the load order the principals that were replaced, expired or invalidated.
+     */
+    private void purgeOrder() {
+        order.removeIf(cached -> entries.get(cached.userId) != cached);
+        queued.set(order.size());
+    }
+
+    private AuthenticatedUser load(Long userId) {
+        return userRepository.findById(userId)
+                .map(PrincipalCache::toPrincipal)
+                .orElse(null);
+    }
+
+    private static AuthenticatedUser toPrincipal(User user) {
+        return new AuthenticatedUser(user.getId(), user.getUsername(), user.getEmail(), user.getVersion());
+    }
+
+    private static AuthenticatedUser join(CompletableFuture<AuthenticatedUser> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Cached principal with its user identifier and load time.
+     */
+    private static final class CachedPrincipal {
+
+        private final Long userId;
+        private final AuthenticatedUser principal;
+        private final long loadedAt;
+
+        private CachedPrincipal(Long userId, AuthenticatedUser principal, long loadedAt) {
+            this.userId = userId;
+            this.principal = principal;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * Statistics of the principal cache.
+     *
+     * @param hits          number of requests answered from the cache
+     * @param misses        number of requests that had to wait for a database load
+     * @param loads         number of database loads (coalesced misses are counted once)
+     * @param loadTimeNanos total time spent loading principals
+     * @param size          current number of cached principals
+     */
+    public record Stats(long hits, long misses, long loads, long loadTimeNanos, int size) {
+    }
+}
@@ -0,0 +1,363 @@
+package com.openclassrooms.mddapi.cache;
+
+import com.openclassrooms.mddapi.event.ArticleCreatedEvent;
+import com.openclassrooms.mddapi.dto.ArticleSummaryDto;
+import com.openclassrooms.mddapi.repository.ArticleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * In-memory index of the most recent articles of each topic.
+ *
+ * <p>
+ * For every topic, the index keeps the identifiers and creation timestamps of
+ * its {@code capacity} most recent articles in a ring buffer backed by primitive
+ * {@code long} arrays. The first page of a feed is then computed by k-way merging
+ * the rings of the subscribed topics, without querying the articles table;
+ * only the selected identifiers need to be loaded afterwards.
+ * </p>
+ *
+ * <p>
+ * Rings are loaded lazily from the database the first time a topic is read,
+ * and updated when an {@link ArticleCreatedEvent} is committed. The index is
+ * local to the node: deployments running several instances should disable it.
+ * </p>
+ *
+ * <p>
+ * A ring is loaded in its own {@code READ_COMMITTED} transaction, never in the
+ * transaction of the request reading it: an older snapshot of that transaction would
+ * miss the articles committed since it started, whose events found no ring to update,
+ * and the ring would lack them until they are evicted.
+ * </p>
+ */
+@Component
+public class RecentArticleIndex {
+
+    private final ArticleRepository articleRepository;
+    private final VersionCounters versionCounters;
+    private final TransactionTemplate loadTemplate;
+    private final boolean enabled;
+    private final int capacity;
+
+    private final ConcurrentHashMap<Long, TopicRing> rings = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a {@link RecentArticleIndex}.
+     *
+     * @param articleRepository  repository used to load the rings lazily
+     * @param versionCounters    version counters bumped once an article is recorded
+     * @param transactionManager transaction manager running the loads of the rings
+     * @param enabled            whether the index serves first feed pages
+     * @param capacity           number of articles kept per topic
+     */
+    public RecentArticleIndex(
+            ArticleRepository articleRepository,
+            VersionCounters versionCounters,
+            PlatformTransactionManager transactionManager,
+            @Value("${mdd.feed.recent-index.enabled:true}") boolean enabled,
+            @Value("${mdd.feed.recent-index.capacity:200}") int capacity
+    ) {
+        this.articleRepository = articleRepository;
+        this.versionCounters = versionCounters;
+        this.enabled = enabled;
+
+        this.loadTemplate = new TransactionTemplate(transactionManager);
+        this.loadTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.loadTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.loadTemplate.setReadOnly(true);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Indicates whether the index serves first feed pages.
+     *
+     * @return {@code true} if the index is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records a newly committed article in the ring of its topic.
+     *
+     * <p>
+     * Rings that have not been loaded yet are left untouched:
+     * the article will be read from the database when they are.
+     * The version of the topic is bumped afterwards, even when the index is disabled,
+     * so that a feed tagged with the new version always contains the article.
+     * </p>
+     *
+     * @param event the event describing the created article
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onArticleCreated(ArticleCreatedEvent event) {
+
+        if (enabled) {
+
+            TopicRing ring = rings.get(event.getTopicId());
+
+            if (ring != null) {
+                ring.add(event.getArticleId(), toEpochNanos(event.getCreatedAt()));
+            }
+        }
+
+        versionCounters.bumpTopic(event.getTopicId());
+    }
+
+    /**
+     * Computes the identifiers of the most recent articles across several topics.
+     *
+     * <p>
+     * The rings of the given topics are merged by creation date then identifier
+     * (descending). The merge gives up, returning {@code null}, as soon as it
+     * reaches the end of a ring that does not hold every article of its topic,
+     * because older articles of that topic may be missing from memory.
+     * </p>
+     *
+     * @param topicIds the identifiers of the topics to merge
+     * @param limit    the maximum number of identifiers to return
+     * @return the article identifiers from most recent to oldest,
+     *         or {@code null} if the index cannot answer
+     */
+    public long[] findMostRecent(Collection<Long> topicIds, int limit) {
+
+        if (!enabled || limit > capacity) {
+            return null;
+        }
+
+        PriorityQueue<RingCursor> heads = new PriorityQueue<>(topicIds.size());
+
+        for (Long topicId : topicIds) {
+            RingCursor cursor = ring(topicId).snapshot();
+            if (cursor.size > 0 || cursor.truncated) {
+                heads.add(cursor);
+            }
+        }
+
+        long[] result = new long[limit];
+        int count = 0;
+
+        while (count < limit && !heads.isEmpty()) {
+
+            RingCursor head = heads.poll();
+
+            if (head.position == head.size) {
+                // Reached the end of a ring that lost older articles.
+                return null;
+            }
+
+            result[count++] = head.ids[head.position++];
+
+            if (head.position < head.size || head.truncated) {
+                heads.add(head);
+            }
+        }
+
+        return count == limit ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Returns the ring of a topic, loading it from the database on first access.
+     *
+     * <p>
+     * The load runs in a new {@code READ_COMMITTED} transaction, so that it sees every
+     * article committed before it, whatever the transaction of the caller.
+     * </p>
+     *
+     * @param topicId the identifier of the topic
+     * @return the loaded {@link TopicRing}
+     */
+    private TopicRing ring(Long topicId) {
+
+        TopicRing ring = rings.computeIfAbsent(topicId, id -> new TopicRing(capacity));
+
+        ring.loadIfNeeded(() -> loadTemplate.execute(status -> articleRepository.findFeedFirstPage(
+                List.of(topicId),
+                PageRequest.of(0, capacity)
+        )));
+
+        return ring;
+    }
+
+    /**
+     * Converts a creation timestamp into a sortable primitive value.
+     *
+     * @param createdAt the timestamp to convert
+     * @return the number of nanoseconds since the epoch, in UTC
+     */
+    private static long toEpochNanos(LocalDateTime createdAt) {
+        return createdAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + createdAt.getNano();
+    }
+
+    /**
+     * Fixed-size ring buffer of the most recent articles of one topic,
+     * kept sorted from oldest to newest in insertion order.
+     */
+    private static final class TopicRing {
+
+        private final long[] ids;
+        private final long[] timestamps;
+
+        private int head;
+        private int size;
+        private boolean loaded;
+        private boolean truncated;
+
+        private TopicRing(int capacity) {
+            this.ids = new long[capacity];
+            this.timestamps = new long[capacity];
+        }
+
+        private synchronized void loadIfNeeded(Supplier<List<ArticleSummaryDto>> loader) {
+
+            if (loaded) {
+                return;
+            }
+
+            List<ArticleSummaryDto> articles = loader.get();
+
+            // Articles come newest first: insert them oldest first.
+            for (int i = articles.size() - 1; i >= 0; i--) {
+                ArticleSummaryDto article = articles.get(i);
+                append(article.getId(), toEpochNanos(article.getCreatedAt()));
+            }
+
+            truncated = articles.size() == ids.length;
+            loaded = true;
+        }
+
+        private synchronized void add(long id, long timestamp) {
+
+            if (!loaded) {
+                return;
+            }
+
+            for (int i = 0; i < size; i++) {
+                if (ids[physical(i)] == id) {
+                    return;
+                }
+            }
+
+            append(id, timestamp);
+        }
+
+        /**
+         * Writes an entry at the head, evicting the oldest one when full,
+         * then moves it back while it is older than its predecessor so that
+         * slightly out-of-order commits keep the ring sorted.
+         */
+        private void append(long id, long timestamp) {
+
+            if (size == ids.length) {
+                truncated = true;
+            } else {
+                size++;
+            }
+
+            ids[head] = id;
+            timestamps[head] = timestamp;
+            head = (head + 1) % ids.length;
+
+            for (int i = 0; i + 1 < size; i++) {
+                int current = physical(i);
+                int previous = physical(i + 1);
+
+                if (compare(timestamps[previous], ids[previous], timestamps[current], ids[current]) <= 0) {
+                    break;
+                }
+
+                swap(current, previous);
+            }
+        }
+
+        /**
+         * Copies the ring into arrays ordered from newest to oldest.
+         */
+        private synchronized RingCursor snapshot() {
+
+            long[] snapshotIds = new long[size];
+            long[] snapshotTimestamps = new long[size];
+
+            for (int i = 0; i < size; i++) {
+                int index = physical(i);
+                snapshotIds[i] = ids[index];
+                snapshotTimestamps[i] = timestamps[index];
+            }
+
+            return new RingCursor(snapshotIds, snapshotTimestamps, truncated);
+        }
+
+        /**
+         * Maps a logical position (0 = newest) to its physical array index.
+         */
+        private int physical(int logical) {
+            return Math.floorMod(head - 1 - logical, ids.length);
+        }
+
+        private void swap(int a, int b) {
+            long id = ids[a];
+            long timestamp = timestamps[a];
+            ids[a] = ids[b];
+            timestamps[a] = timestamps[b];
+            ids[b] = id;
+            timestamps[b] = timestamp;
+        }
+    }
+
+    /**
+     * Read position within a ring snapshot, ordered by its current entry
+     * (newest first) so that a priority queue of cursors performs the k-way merge.
+     */
+    private static final class RingCursor implements Comparable<RingCursor> {
+
+        private final long[] ids;
+        private final long[] timestamps;
+        private final int size;
+        private final boolean truncated;
+        private int position;
+
+        private RingCursor(long[] ids, long[] timestamps, boolean truncated) {
+            this.ids = ids;
+            this.timestamps = timestamps;
+            this.size = ids.length;
+            this.truncated = truncated;
+        }
+
+        @Override
+        public int compareTo(RingCursor other) {
+
+            // An exhausted truncated ring sorts first so the merge stops on it.
+            if (position == size || other.position == other.size) {
+                return Boolean.compare(other.position == other.size, position == size);
+            }
+
+            return compare(
+                    other.timestamps[other.position], other.ids[other.position],
+                    timestamps[position], ids[position]
+            );
+        }
+    }
+
+    /**
+     * Compares two entries by timestamp then identifier.
+     */
+    private static int compare(long timestampA, long idA, long timestampB, long idB) {
+        int byTimestamp = Long.compare(timestampA, timestampB);
+        return byTimestamp != 0 ? byTimestamp : Long.compare(idA, idB);
+    }
+}
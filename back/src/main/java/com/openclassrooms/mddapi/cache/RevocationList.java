@@ -0,0 +1,225 @@
+package com.openclassrooms.mddapi.cache;
+
+import com.openclassrooms.mddapi.repository.RefreshSessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory set of the revoked sessions whose access tokens may still be in circulation.
+ *
+ * <p>
+ * Every authenticated request checks the session of its access token against this set:
+ * <ol>
+ *     <li>A Bloom filter answers "not revoked" for almost every session, without
+ *     any allocation or lock</li>
+ *     <li>Only on a positive answer, an exact set of session identifiers
+ *     rules out false positives</li>
+ * </ol>
+ * </p>
+ *
+ * <p>
+ * An access token lives at most {@code mdd.jwt.access-ttl-minutes}, and a revoked
+ * session cannot issue new ones: sessions revoked before that window can be forgotten.
+ * The set is therefore rebuilt from the {@code refresh_sessions} table at startup and
+ * every {@code mdd.auth.revocation.rebuild-ms}, which also picks up the revocations
+ * made by other nodes.
+ * </p>
+ */
+@Component
+public class RevocationList {
+
+    private final RefreshSessionRepository refreshSessionRepository;
+    private final Duration window;
+    private final int expectedEntries;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Constructs a {@link RevocationList}.
+     *
+     * @param refreshSessionRepository repository used to rebuild the set
+     * @param accessTtlMinutes         lifetime of access tokens
+     * @param expectedEntries          number of revocations the Bloom filter is sized for
+     */
+    public RevocationList(
+            RefreshSessionRepository refreshSessionRepository,
+            @Value("${mdd.jwt.access-ttl-minutes:15}") long accessTtlMinutes,
+            @Value("${mdd.auth.revocation.expected-entries:10000}") int expectedEntries
+    ) {
+        this.refreshSessionRepository = refreshSessionRepository;
+        this.window = Duration.ofMinutes(accessTtlMinutes);
+        this.expectedEntries = expectedEntries;
+        this.snapshot = new Snapshot(expectedEntries);
+    }
+
+    /**
+     * Indicates whether a session has been revoked.
+     *
+     * @param sessionId the identifier of the session
+     * @return {@code true} if the access tokens of the session must be rejected
+     */
+    public boolean isRevoked(String sessionId) {
+        Snapshot current = snapshot;
+        return current.filter.mightContain(sessionId) && current.revokedAt.containsKey(sessionId);
+    }
+
+    /**
+     * Records revoked sessions.
+     *
+     * @param sessionIds the identifiers of the revoked sessions
+     */
+    public void revoke(List<String> sessionIds) {
+
+        long now = System.currentTimeMillis();
+        Snapshot current = snapshot;
+
+        for (String sessionId : sessionIds) {
+            current.add(sessionId, now);
+        }
+    }
+
+    /**
+     * Rebuilds the set from the sessions revoked during the last access token lifetime.
+     *
+     * <p>
+     * Revocations recorded in memory during the same window are carried over,
+     * so that a revocation committed while the table was being read is not lost.
+     * </p>
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${mdd.auth.revocation.rebuild-ms:60000}")
+    public void rebuild() {
+
+        long cutoff = System.currentTimeMillis() - window.toMillis();
+
+        List<String> revoked = refreshSessionRepository.findIdsRevokedSince(
+                LocalDateTime.now().minus(window)
+        );
+
+        Snapshot previous = snapshot;
+        Snapshot next = new Snapshot(Math.max(expectedEntries, 2 * revoked.size()));
+
+        long now = System.currentTimeMillis();
+        revoked.forEach(sessionId -> next.add(sessionId, now));
+
+        carryOver(previous, next, cutoff);
+
+        snapshot = next;
+
+        // Revocations added to the previous snapshot during the swap.
+        carryOver(previous, next, cutoff);
+    }
+
+    private static void carryOver(Snapshot from, Snapshot to, long cutoff) {
+        from.revokedAt.forEach((sessionId, revokedAt) -> {
+            if (revokedAt >= cutoff) {
+                to.add(sessionId, revokedAt);
+            }
+        });
+    }
+
+    /**
+     * Returns the number of revoked sessions currently tracked.
+     *
+     * @return the size of the exact set
+     */
+    public int size() {
+        return snapshot.revokedAt.size();
+    }
+
+    /**
+     * Bloom filter and exact set built together.
+     */
+    private static final class Snapshot {
+
+        private final BloomFilter filter;
+        private final ConcurrentHashMap<String, Long> revokedAt = new ConcurrentHashMap<>();
+
+        private Snapshot(int expectedEntries) {
+            this.filter = new BloomFilter(expectedEntries);
+        }
+
+        private void add(String sessionId, long revokedAtMillis) {
+            revokedAt.putIfAbsent(sessionId, revokedAtMillis);
+            filter.add(sessionId);
+        }
+    }
+
+    /**
+     * Bloom filter sized for a 1% false positive rate, using double hashing
+     * over a 64-bit FNV-1a hash. Bits are set atomically so that concurrent
+     * additions and lookups need no lock.
+     */
+    private static final class BloomFilter {
+
+        private static final int HASHES = 7;
+        private static final int BITS_PER_ENTRY = 10;
+
+        private final AtomicLongArray words;
+        private final long bitCount;
+
+        private BloomFilter(int expectedEntries) {
+            int wordCount = Math.max(1, (int) (((long) expectedEntries * BITS_PER_ENTRY + 63) / 64));
+            this.words = new AtomicLongArray(wordCount);
+            this.bitCount = (long) wordCount * 64;
+        }
+
+        private void add(String value) {
+
+            long hash1 = hash(value);
+            long hash2 = mix(hash1);
+
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+
+                do {
+                    current = words.get(word);
+                } while ((current & mask) == 0 && !words.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        private boolean mightContain(String value) {
+
+            long hash1 = hash(value);
+            long hash2 = mix(hash1);
+
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash ^= value.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        private static long mix(long hash) {
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash | 1;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.openclassrooms.mddapi.cache;
+
+import com.openclassrooms.mddapi.event.SubscriptionChangedEvent;
+import com.openclassrooms.mddapi.repository.UserTopicRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory index of the topics each user is subscribed to.
+ *
+ * <p>
+ * The subscriptions of a user are kept as a sorted {@code long[]} of topic identifiers:
+ * <ul>
+ *     <li>Loaded lazily with a single projection query, without reading any entity</li>
+ *     <li>Updated in place, by copy-on-write, from committed {@link SubscriptionChangedEvent}</li>
+ *     <li>Bounded to {@code mdd.subscriptions.index.max-users} users, the least
+ *     recently used one being evicted first</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Arrays are never modified once stored, so they are handed out without copying:
+ * callers must not modify them. The index is local to the node.
+ * </p>
+ */
+@Component
+public class SubscriptionIndex {
+
+    private static final long[] NONE = new long[0];
+
+    private final UserTopicRepository userTopicRepository;
+    private final VersionCounters versionCounters;
+    private final int maxUsers;
+
+    private final LinkedHashMap<Long, long[]> entries;
+
+    /**
+     * Incremented on every change, so that a load started before a change
+     * does not store stale subscriptions.
+     */
+    private final AtomicLong changes = new AtomicLong();
+
+    /**
+     * Constructs a {@link SubscriptionIndex}.
+     *
+     * @param userTopicRepository repository used to load the subscriptions on a miss
+     * @param versionCounters     version counters bumped once a change is applied
+     * @param maxUsers            maximum number of users kept in the index
+     */
+    public SubscriptionIndex(
+            UserTopicRepository userTopicRepository,
+            VersionCounters versionCounters,
+            @Value("${mdd.subscriptions.index.max-users:10000}") int maxUsers
+    ) {
+        this.userTopicRepository = userTopicRepository;
+        this.versionCounters = versionCounters;
+        this.maxUsers = maxUsers;
+
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+                return size() > SubscriptionIndex.this.maxUsers;
+            }
+        };
+    }
+
+    /**
+     * Returns the identifiers of the topics a user is subscribed to.
+     *
+     * @param userId the identifier of the user
+     * @return the topic identifiers in ascending order; must not be modified
+     */
+    public long[] getTopicIds(Long userId) {
+
+        long[] topicIds = lookup(userId);
+
+        if (topicIds != null) {
+            return topicIds;
+        }
+
+        long changesBefore = changes.get();
+
+        topicIds = userTopicRepository.findTopicIdsByUserId(userId)
+                .stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+
+        if (topicIds.length == 0) {
+            topicIds = NONE;
+        }
+
+        store(userId, topicIds, changesBefore);
+
+        return topicIds;
+    }
+
+    /**
+     * Returns the identifiers of the topics a user is subscribed to, as a list.
+     *
+     * @param userId the identifier of the user
+     * @return the topic identifiers in ascending order
+     */
+    public List<Long> getTopicIdList(Long userId) {
+        return Arrays.stream(getTopicIds(userId)).boxed().toList();
+    }
+
+    /**
+     * Tells whether a user is subscribed to a topic.
+     *
+     * @param userId  the identifier of the user
+     * @param topicId the identifier of the topic
+     * @return {@code true} if the user is subscribed to the topic
+     */
+    public boolean isSubscribed(Long userId, Long topicId) {
+        return Arrays.binarySearch(getTopicIds(userId), topicId) >= 0;
+    }
+
+    /**
+     * Applies a committed subscription change to the index.
+     *
+     * <p>
+     * A user not present in the index is left out: their subscriptions
+     * will be read from the database on next access. The version of the user's
+     * subscriptions is bumped once the index is up to date.
+     * </p>
+     *
+     * @param event the event describing the change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSubscriptionChanged(SubscriptionChangedEvent event) {
+
+        synchronized (entries) {
+
+            changes.incrementAndGet();
+
+            long[] topicIds = entries.get(event.getUserId());
+
+            if (topicIds != null) {
+                entries.put(event.getUserId(), event.isSubscribed()
+                        ? with(topicIds, event.getTopicId())
+                        : without(topicIds, event.getTopicId()));
+            }
+        }
+
+        versionCounters.bumpSubscriptions(event.getUserId());
+    }
+
+    private long[] lookup(Long userId) {
+        synchronized (entries) {
+            return entries.get(userId);
+        }
+    }
+
+    private void store(Long userId, long[] topicIds, long changesBefore) {
+        synchronized (entries) {
+            if (changes.get() == changesBefore) {
+                entries.put(userId, topicIds);
+            }
+        }
+    }
+
+    private static long[] with(long[] topicIds, long topicId) {
+
+        int position = Arrays.binarySearch(topicIds, topicId);
+
+        if (position >= 0) {
+            return topicIds;
+        }
+
+        int insertion = -position - 1;
+        long[] copy = new long[topicIds.length + 1];
+
+        System.arraycopy(topicIds, 0, copy, 0, insertion);
+        copy[insertion] = topicId;
+        System.arraycopy(topicIds, insertion, copy, insertion + 1, topicIds.length - insertion);
+
+        return copy;
+    }
+
+    private static long[] without(long[] topicIds, long topicId) {
+
+        int position = Arrays.binarySearch(topicIds, topicId);
+
+        if (position < 0) {
+            return topicIds;
+        }
+
+        if (topicIds.length == 1) {
+            return NONE;
+        }
+
+        long[] copy = new long[topicIds.length - 1];
+
+        System.arraycopy(topicIds, 0, copy, 0, position);
+        System.arraycopy(topicIds, position + 1, copy, position, topicIds.length - position - 1);
+
+        return copy;
+    }
+}
@@ -0,0 +1,369 @@
+package com.openclassrooms.mddapi.cache;
+
+import com.openclassrooms.mddapi.dto.ArticleActivityDto;
+import com.openclassrooms.mddapi.event.ArticleCreatedEvent;
+import com.openclassrooms.mddapi.event.CommentCreatedEvent;
+import com.openclassrooms.mddapi.repository.ArticleRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * In-memory ranking of the most engaging recent articles of each topic.
+ *
+ * <p>
+ * The score of an article is {@code (1 + comments) * exp(-lambda * age)}, where
+ * {@code lambda} is derived from the configured half-life. Since the decay factor is the
+ * same for every article at a given instant, the ranking is kept in the time-invariant
+ * logarithmic form {@code ln(1 + comments) + lambda * createdAt}: a score only changes
+ * when the article receives a comment, and never needs to be recomputed per request.
+ * </p>
+ *
+ * <p>
+ * Each topic keeps its {@code mdd.feed.top.per-topic} best articles in a sorted set,
+ * and the comment count of every article of the window, so that a comment on an article
+ * outside of the set is ranked without querying the database. Topics are loaded lazily,
+ * in their own {@code READ_COMMITTED} transaction, from the articles published during the
+ * last {@code mdd.feed.top.window-days} days, then updated from committed
+ * {@link ArticleCreatedEvent} and {@link CommentCreatedEvent}. Comments on articles older
+ * than the window are ignored, and articles leaving the window are forgotten every
+ * {@code mdd.feed.top.eviction-ms} unless they are still ranked.
+ * </p>
+ */
+@Component
+public class TopArticleIndex {
+
+    private static final double HOURS_PER_SECOND = 1.0 / 3600;
+
+    private final ArticleRepository articleRepository;
+    private final TransactionTemplate loadTemplate;
+
+    private final int perTopic;
+    private final int windowDays;
+    private final double lambda;
+
+    private final ConcurrentHashMap<Long, TopicRanking> rankings = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a {@link TopArticleIndex}.
+     *
+     * @param articleRepository  repository used to load the rankings lazily
+     * @param transactionManager transaction manager running the loads of the rankings
+     * @param perTopic           number of articles ranked per topic
+     * @param windowDays         age of the oldest articles considered
+     * @param halfLifeHours      time after which the weight of an article is halved
+     */
+    public TopArticleIndex(
+            ArticleRepository articleRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${mdd.feed.top.per-topic:100}") int perTopic,
+            @Value("${mdd.feed.top.window-days:7}") int windowDays,
+            @Value("${mdd.feed.top.half-life-hours:24}") double halfLifeHours
+    ) {
+        this.articleRepository = articleRepository;
+        this.perTopic = Math.max(1, perTopic);
+        this.windowDays = windowDays;
+        this.lambda = Math.log(2) / halfLifeHours;
+
+        this.loadTemplate = new TransactionTemplate(transactionManager);
+        this.loadTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.loadTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.loadTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Ranks a newly committed article, with no comment yet.
+     *
+     * @param event the event describing the created article
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onArticleCreated(ArticleCreatedEvent event) {
+
+        TopicRanking ranking = rankings.get(event.getTopicId());
+
+        if (ranking != null) {
+            ranking.add(event.getArticleId(), base(event.getCreatedAt()));
+        }
+    }
+
+    /**
+     * Raises the score of a commented article.
+     *
+     * <p>
+     * Comments may be written outside of a transaction: the listener then runs immediately.
+     * </p>
+     *
+     * @param event the event describing the created comment
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCommentCreated(CommentCreatedEvent event) {
+
+        TopicRanking ranking = rankings.get(event.getTopicId());
+
+        if (ranking != null) {
+            ranking.increment(event.getArticleId());
+        }
+    }
+
+    /**
+     * Forgets the unranked articles that left the window.
+     */
+    @Scheduled(fixedDelayString = "${mdd.feed.top.eviction-ms:3600000}")
+    public void evictExpired() {
+
+        double minBase = base(LocalDateTime.now().minusDays(windowDays));
+
+        rankings.values().forEach(ranking -> ranking.evictBefore(minBase));
+    }
+
+    /**
+     * Merges the rankings of several topics.
+     *
+     * @param topicIds the identifiers of the topics to merge
+     * @param limit    the maximum number of identifiers to return
+     * @return the article identifiers from best to worst score
+     */
+    public long[] findTop(Collection<Long> topicIds, int limit) {
+
+        PriorityQueue<RankingCursor> heads = new PriorityQueue<>(Math.max(1, topicIds.size()));
+
+        for (Long topicId : topicIds) {
+            RankingCursor cursor = ranking(topicId).snapshot();
+            if (cursor.ids.length > 0) {
+                heads.add(cursor);
+            }
+        }
+
+        long[] result = new long[limit];
+        int count = 0;
+
+        while (count < limit && !heads.isEmpty()) {
+
+            RankingCursor head = heads.poll();
+            result[count++] = head.ids[head.position++];
+
+            if (head.position < head.ids.length) {
+                heads.add(head);
+            }
+        }
+
+        return count == limit ? result : Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Returns a counter incremented each time the ranking of a topic changes.
+     *
+     * @param topicId the identifier of the topic
+     * @return the current version of the topic ranking
+     */
+    public long version(Long topicId) {
+        TopicRanking ranking = rankings.get(topicId);
+        return ranking == null ? 0L : ranking.version();
+    }
+
+    /**
+     * Returns the ranking of a topic, loading it on first access.
+     *
+     * <p>
+     * The load runs in a new {@code READ_COMMITTED} transaction, so that it sees every
+     * article and comment committed before it, whatever the transaction of the caller.
+     * </p>
+     */
+    private TopicRanking ranking(Long topicId) {
+
+        TopicRanking ranking = rankings.computeIfAbsent(topicId, id -> new TopicRanking());
+
+        ranking.loadIfNeeded(() -> loadTemplate.execute(status -> articleRepository.findActivitySince(
+                topicId,
+                LocalDateTime.now().minusDays(windowDays)
+        )));
+
+        return ranking;
+    }
+
+    /**
+     * Computes the time-dependent part of the logarithmic score.
+     */
+    private double base(LocalDateTime createdAt) {
+        return lambda * createdAt.toEpochSecond(ZoneOffset.UTC) * HOURS_PER_SECOND;
+    }
+
+    private static double score(double base, long comments) {
+        return base + Math.log1p(comments);
+    }
+
+    /**
+     * Article of the window of a topic, with its comment count.
+     */
+    private static final class Entry {
+
+        private final long articleId;
+        private final double base;
+        private long comments;
+        private double score;
+
+        private Entry(long articleId, double base, long comments) {
+            this.articleId = articleId;
+            this.base = base;
+            this.comments = comments;
+            this.score = score(base, comments);
+        }
+    }
+
+    /**
+     * Articles of the window of one topic, and the best of them sorted by score
+     * then identifier (descending).
+     */
+    private final class TopicRanking {
+
+        private final Map<Long, Entry> entries = new HashMap<>();
+        private final TreeSet<Entry> ranking = new TreeSet<>(
+                Comparator.<Entry>comparingDouble(entry -> entry.score)
+                        .thenComparingLong(entry -> entry.articleId)
+                        .reversed()
+        );
+
+        private boolean loaded;
+        private long version;
+
+        private synchronized void loadIfNeeded(Supplier<List<ArticleActivityDto>> loader) {
+
+            if (loaded) {
+                return;
+            }
+
+            for (ArticleActivityDto activity : loader.get()) {
+                Entry entry = new Entry(activity.getId(), base(activity.getCreatedAt()), activity.getCommentCount());
+                entries.put(entry.articleId, entry);
+                rank(entry);
+            }
+
+            loaded = true;
+        }
+
+        private synchronized void add(long articleId, double base) {
+
+            if (!loaded || entries.containsKey(articleId)) {
+                return;
+            }
+
+            Entry entry = new Entry(articleId, base, 0);
+            entries.put(articleId, entry);
+
+            if (rank(entry)) {
+                version++;
+            }
+        }
+
+        private synchronized void increment(long articleId) {
+
+            if (!loaded) {
+                return;
+            }
+
+            Entry entry = entries.get(articleId);
+
+            if (entry == null) {
+                // Older than the window.
+                return;
+            }
+
+            boolean ranked = ranking.remove(entry);
+
+            entry.comments++;
+            entry.score = score(entry.base, entry.comments);
+
+            if (ranked) {
+                ranking.add(entry);
+                version++;
+            } else if (rank(entry)) {
+                version++;
+            }
+        }
+
+        /**
+         * Adds an article to the best ones if its score is high enough, evicting the worst one
+         * when the ranking is full.
+         *
+         * @return {@code true} if the article is ranked
+         */
+        private boolean rank(Entry entry) {
+
+            if (ranking.size() >= perTopic
+                    && ranking.comparator().compare(entry, ranking.last()) > 0) {
+                return false;
+            }
+
+            ranking.add(entry);
+
+            if (ranking.size() > perTopic) {
+                ranking.pollLast();
+            }
+
+            return true;
+        }
+
+        private synchronized void evictBefore(double minBase) {
+            entries.values().removeIf(entry -> entry.base < minBase && !ranking.contains(entry));
+        }
+
+        private synchronized RankingCursor snapshot() {
+
+            long[] ids = new long[ranking.size()];
+            double[] scores = new double[ranking.size()];
+            int i = 0;
+
+            for (Entry entry : ranking) {
+                ids[i] = entry.articleId;
+                scores[i] = entry.score;
+                i++;
+            }
+
+            return new RankingCursor(ids, scores);
+        }
+
+        private synchronized long version() {
+            return version;
+        }
+    }
+
+    /**
+     * Read position within a ranking snapshot, ordered by its current entry
+     * (best first) so that a priority queue of cursors performs the k-way merge.
+     */
+    private static final class RankingCursor implements Comparable<RankingCursor> {
+
+        private final long[] ids;
+        private final double[] scores;
+        private int position;
+
+        private RankingCursor(long[] ids, double[] scores) {
+            this.ids = ids;
+            this.scores = scores;
+        }
+
+        @Override
+        public int compareTo(RankingCursor other) {
+            int byScore = Double.compare(other.scores[other.position], scores[position]);
+            return byScore != 0 ? byScore : Long.compare(other.ids[other.position], ids[position]);
+        }
+    }
+}
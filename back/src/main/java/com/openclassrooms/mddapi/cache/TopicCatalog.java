@@ -0,0 +1,250 @@
+package com.openclassrooms.mddapi.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.mddapi.dto.TopicDto;
+import com.openclassrooms.mddapi.event.TopicCreatedEvent;
+import com.openclassrooms.mddapi.mapper.TopicMapper;
+import com.openclassrooms.mddapi.repository.TopicRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable in-memory snapshot of the topic catalog.
+ *
+ * <p>
+ * The catalog is read from the database once, then kept as an immutable {@link Snapshot}
+ * behind a volatile reference. When a topic is created, a new snapshot including it is
+ * built aside (copy-on-write) and published with a single volatile write once the topic
+ * is committed: readers never lock and always see a complete catalog.
+ * </p>
+ *
+ * <p>
+ * Each snapshot also holds the JSON fragment of every topic, up to its
+ * {@code subscribed} flag, so that the topic list of a user is written by
+ * concatenating bytes instead of serializing objects. Only the subscription
+ * flag of each topic is written per request.
+ * </p>
+ */
+@Component
+public class TopicCatalog {
+
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Length of the per-request part of a topic: flag and closing brace.
+     */
+    private static final int DYNAMIC_SIZE = 6;
+
+    private final TopicRepository topicRepository;
+    private final TopicMapper topicMapper;
+    private final ObjectMapper objectMapper;
+    private final VersionCounters versionCounters;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Constructs a {@link TopicCatalog}.
+     *
+     * @param topicRepository repository used to load the catalog on first access
+     * @param topicMapper     mapper used to convert topics to DTOs
+     * @param objectMapper    mapper used to escape the JSON fragments
+     * @param versionCounters version counters bumped once a new topic is published
+     */
+    public TopicCatalog(TopicRepository topicRepository,
+                        TopicMapper topicMapper,
+                        ObjectMapper objectMapper,
+                        VersionCounters versionCounters) {
+        this.topicRepository = topicRepository;
+        this.topicMapper = topicMapper;
+        this.objectMapper = objectMapper;
+        this.versionCounters = versionCounters;
+    }
+
+    /**
+     * Returns every topic, ordered by identifier.
+     *
+     * <p>
+     * The returned list and its elements are shared by every caller and must not be modified.
+     * </p>
+     *
+     * @return an unmodifiable list of {@link TopicDto}
+     */
+    public List<TopicDto> getTopics() {
+        return snapshot().topics;
+    }
+
+    /**
+     * Returns the topics among the given identifiers, ordered by identifier.
+     *
+     * <p>
+     * Both the identifiers and the catalog being sorted, they are matched in a single pass.
+     * </p>
+     *
+     * @param topicIds the topic identifiers, in ascending order
+     * @return the matching {@link TopicDto}; unknown identifiers are skipped
+     */
+    public List<TopicDto> getTopics(long[] topicIds) {
+
+        List<TopicDto> topics = snapshot().topics;
+        List<TopicDto> matching = new ArrayList<>(topicIds.length);
+        int next = 0;
+
+        for (TopicDto topic : topics) {
+
+            while (next < topicIds.length && topicIds[next] < topic.getId()) {
+                next++;
+            }
+
+            if (next == topicIds.length) {
+                break;
+            }
+
+            if (topicIds[next] == topic.getId()) {
+                matching.add(topic);
+            }
+        }
+
+        return matching;
+    }
+
+    /**
+     * Writes the JSON array of every topic with its subscription flag.
+     *
+     * @param subscribedTopicIds the identifiers of the topics the user is subscribed to,
+     *                           in ascending order
+     * @return the UTF-8 encoded JSON array
+     */
+    public byte[] toJson(long[] subscribedTopicIds) {
+
+        Snapshot current = snapshot();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(current.jsonSize);
+        int next = 0;
+
+        out.write('[');
+
+        for (int i = 0; i < current.topics.size(); i++) {
+
+            long topicId = current.topics.get(i).getId();
+
+            while (next < subscribedTopicIds.length && subscribedTopicIds[next] < topicId) {
+                next++;
+            }
+
+            if (i > 0) {
+                out.write(',');
+            }
+
+            out.writeBytes(current.fragments[i]);
+            out.writeBytes(next < subscribedTopicIds.length && subscribedTopicIds[next] == topicId
+                    ? TRUE
+                    : FALSE);
+            out.write('}');
+        }
+
+        out.write(']');
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Publishes a snapshot including a newly committed topic, then bumps the version
+     * of the catalog: a topic list tagged with the new version always contains the topic.
+     *
+     * @param event the event describing the created topic
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onTopicCreated(TopicCreatedEvent event) {
+
+        // Not loaded yet, the topic will be read with the others.
+        if (snapshot != null) {
+
+            boolean known = snapshot.topics.stream()
+                    .anyMatch(topic -> topic.getId().equals(event.getTopicId()));
+
+            // Otherwise, already read by a load that ran after the commit.
+            if (!known) {
+                List<TopicDto> topics = new ArrayList<>(snapshot.topics);
+                topics.add(new TopicDto(event.getTopicId(), event.getName(), event.getDescription()));
+
+                snapshot = build(topics);
+            }
+        }
+
+        versionCounters.bumpCatalog();
+    }
+
+    private Snapshot snapshot() {
+
+        Snapshot current = snapshot;
+
+        return current != null ? current : load();
+    }
+
+    private synchronized Snapshot load() {
+
+        if (snapshot == null) {
+            snapshot = build(topicMapper.toDtoList(topicRepository.findAll()));
+        }
+
+        return snapshot;
+    }
+
+    private Snapshot build(Collection<TopicDto> source) {
+
+        List<TopicDto> topics = source.stream()
+                .sorted(Comparator.comparing(TopicDto::getId))
+                .toList();
+
+        byte[][] fragments = new byte[topics.size()][];
+        int jsonSize = 2;
+
+        for (int i = 0; i < topics.size(); i++) {
+            fragments[i] = fragment(topics.get(i));
+            jsonSize += fragments[i].length + DYNAMIC_SIZE;
+        }
+
+        return new Snapshot(topics, fragments, jsonSize);
+    }
+
+    /**
+     * Serializes a topic up to the value of its {@code subscribed} field.
+     */
+    private byte[] fragment(TopicDto topic) {
+        try {
+            return ("{\"id\":" + topic.getId()
+                    + ",\"name\":" + objectMapper.writeValueAsString(topic.getName())
+                    + ",\"description\":" + objectMapper.writeValueAsString(topic.getDescription())
+                    + ",\"subscribed\":")
+                    .getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Topics with their pre-serialized JSON fragments, never modified once published.
+     */
+    private static final class Snapshot {
+
+        private final List<TopicDto> topics;
+        private final byte[][] fragments;
+        private final int jsonSize;
+
+        private Snapshot(List<TopicDto> topics, byte[][] fragments, int jsonSize) {
+            this.topics = topics;
+            this.fragments = fragments;
+            this.jsonSize = jsonSize;
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package com.openclassrooms.mddapi.cache;
+
+import com.openclassrooms.mddapi.dto.TopicStatsDto;
+import com.openclassrooms.mddapi.event.ArticleCreatedEvent;
+import com.openclassrooms.mddapi.event.CommentCreatedEvent;
+import com.openclassrooms.mddapi.event.SubscriptionChangedEvent;
+import com.openclassrooms.mddapi.model.TopicStats;
+import com.openclassrooms.mddapi.repository.TopicStatsRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory statistics of each topic: subscribers, articles and last activity.
+ *
+ * <p>
+ * Counts are never computed per request:
+ * <ul>
+ *     <li>On startup, they are read from the {@code topic_stats} table</li>
+ *     <li>Committed subscriptions, articles and comments update them in memory,
+ *     using {@link LongAdder} so that concurrent writers do not contend</li>
+ *     <li>Every {@code mdd.topics.stats.flush-ms}, the changes accumulated since the
+ *     previous flush are added to the table in a single transaction, then the
+ *     rows are read back so that changes flushed by other nodes are picked up</li>
+ *     <li>Every {@code mdd.topics.stats.recount-ms}, the table is overwritten with
+ *     counts recomputed from the subscriptions, articles and comments, which
+ *     corrects any drift</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Counts may briefly lag behind the database, by up to one flush interval for
+ * changes made on another node.
+ * </p>
+ *
+ * <p>
+ * The table is filled with the existing counts when it is created, so a topic without
+ * a row is new and its first flush writes its counts as they are.
+ * </p>
+ *
+ * <p>
+ * With several nodes, a recount also counts the changes that other nodes have committed
+ * but not flushed yet; those nodes add them again on their next flush. Counts are then
+ * off by these changes until the next recount, up to {@code mdd.topics.stats.recount-ms}.
+ * </p>
+ */
+@Component
+public class TopicStatsCounters {
+
+    private final TopicStatsRepository topicStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ConcurrentHashMap<Long, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Incremented each time a count changes, to build entity tags.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * Constructs a {@link TopicStatsCounters}.
+     *
+     * @param topicStatsRepository repository persisting the statistics
+     * @param transactionTemplate  template running each flush in a single transaction
+     */
+    public TopicStatsCounters(TopicStatsRepository topicStatsRepository,
+                              TransactionTemplate transactionTemplate) {
+        this.topicStatsRepository = topicStatsRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * Returns the statistics of a topic.
+     *
+     * @param topicId the identifier of the topic
+     * @return the current {@link TopicStatsDto}, with zero counts for an unknown topic
+     */
+    public TopicStatsDto get(Long topicId) {
+
+        Counter counter = counters.get(topicId);
+
+        if (counter == null) {
+            return new TopicStatsDto(topicId, 0, 0, null);
+        }
+
+        return new TopicStatsDto(
+                topicId,
+                counter.subscribers.sum(),
+                counter.articles.sum(),
+                counter.lastActivityAt.get()
+        );
+    }
+
+    /**
+     * Returns a counter incremented each time a statistic changes.
+     *
+     * @return the current version of the statistics
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Counts a newly committed subscription or unsubscription.
+     *
+     * @param event the event describing the change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSubscriptionChanged(SubscriptionChangedEvent event) {
+        counter(event.getTopicId()).subscribers.add(event.isSubscribed() ? 1 : -1);
+        version.incrementAndGet();
+    }
+
+    /**
+     * Counts a newly committed article.
+     *
+     * @param event the event describing the created article
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onArticleCreated(ArticleCreatedEvent event) {
+        Counter counter = counter(event.getTopicId());
+        counter.articles.increment();
+        counter.advance(event.getCreatedAt());
+        version.incrementAndGet();
+    }
+
+    /**
+     * Records the activity of a newly committed comment.
+     *
+     * @param event the event describing the created comment
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCommentCreated(CommentCreatedEvent event) {
+        counter(event.getTopicId()).advance(event.getCreatedAt());
+        version.incrementAndGet();
+    }
+
+    /**
+     * Loads the persisted statistics.
+     */
+    @PostConstruct
+    public synchronized void load() {
+        topicStatsRepository.findAll().forEach(this::rebase);
+    }
+
+    /**
+     * Adds the changes accumulated since the previous flush to the {@code topic_stats} table,
+     * then reads the table back.
+     */
+    @Scheduled(fixedDelayString = "${mdd.topics.stats.flush-ms:5000}")
+    public synchronized void flush() {
+
+        List<Delta> deltas = new ArrayList<>();
+
+        for (Map.Entry<Long, Counter> entry : counters.entrySet()) {
+
+            Delta delta = entry.getValue().delta(entry.getKey());
+
+            if (delta != null) {
+                deltas.add(delta);
+            }
+        }
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> deltas.forEach(this::write));
+
+        // Only once committed: a failed flush is retried with the same changes.
+        deltas.forEach(Delta::markFlushed);
+
+        topicStatsRepository.findAll().forEach(this::rebase);
+    }
+
+    /**
+     * Recounts the statistics of every topic from the database and overwrites the table.
+     *
+     * <p>
+     * Changes counted in memory before the recount starts are committed, so the recount
+     * already includes them: they are marked as flushed instead of being added again.
+     * Only the changes counted afterwards are kept pending. A change whose listener runs
+     * while the recount reads may still be counted twice until the next recount.
+     * </p>
+     */
+    @Scheduled(
+            initialDelayString = "${mdd.topics.stats.recount-initial-delay-ms:60000}",
+            fixedDelayString = "${mdd.topics.stats.recount-ms:3600000}"
+    )
+    public synchronized void recount() {
+
+        flush();
+
+        List<Delta> counted = new ArrayList<>();
+
+        counters.forEach((topicId, counter) -> counted.add(counter.snapshot(topicId)));
+
+        List<TopicStats> recounted = transactionTemplate.execute(status -> {
+
+            List<TopicStats> rows = topicStatsRepository.countAll()
+                    .stream()
+                    .map(stats -> new TopicStats(
+                            stats.getTopicId(),
+                            stats.getSubscriberCount(),
+                            stats.getArticleCount(),
+                            stats.getLastActivityAt()
+                    ))
+                    .toList();
+
+            return topicStatsRepository.saveAll(rows);
+        });
+
+        // Only once committed, like a flush.
+        counted.forEach(Delta::markFlushed);
+
+        recounted.forEach(this::rebase);
+    }
+
+    private void write(Delta delta) {
+
+        if (topicStatsRepository.addCounts(delta.topicId, delta.subscribers, delta.articles) == 0) {
+            topicStatsRepository.save(new TopicStats(
+                    delta.topicId,
+                    delta.subscribers,
+                    delta.articles,
+                    delta.lastActivityAt
+            ));
+            return;
+        }
+
+        if (delta.lastActivityAt != null) {
+            topicStatsRepository.advanceLastActivity(delta.topicId, delta.lastActivityAt);
+        }
+    }
+
+    /**
+     * Aligns a counter on a persisted row, keeping the changes not flushed yet.
+     */
+    private void rebase(TopicStats row) {
+
+        Counter counter = counter(row.getTopicId());
+
+        long subscribers = row.getSubscriberCount() - counter.flushedSubscribers;
+        long articles = row.getArticleCount() - counter.flushedArticles;
+
+        counter.subscribers.add(subscribers);
+        counter.articles.add(articles);
+        counter.flushedSubscribers = row.getSubscriberCount();
+        counter.flushedArticles = row.getArticleCount();
+
+        boolean advanced = false;
+
+        if (row.getLastActivityAt() != null) {
+
+            advanced = counter.advance(row.getLastActivityAt());
+
+            if (counter.flushedLastActivityAt == null
+                    || row.getLastActivityAt().isAfter(counter.flushedLastActivityAt)) {
+                counter.flushedLastActivityAt = row.getLastActivityAt();
+            }
+        }
+
+        if (subscribers != 0 || articles != 0 || advanced) {
+            version.incrementAndGet();
+        }
+    }
+
+    private Counter counter(Long topicId) {
+        return counters.computeIfAbsent(topicId, id -> new Counter());
+    }
+
+    /**
+     * Statistics of one topic.
+     *
+     * <p>
+     * The {@code flushed} fields hold the values last written to or read from
+     * the table; they are only accessed while holding the lock of the enclosing instance.
+     * </p>
+     */
+    private static final class Counter {
+
+        private final LongAdder subscribers = new LongAdder();
+        private final LongAdder articles = new LongAdder();
+        private final AtomicReference<LocalDateTime> lastActivityAt = new AtomicReference<>();
+
+        private long flushedSubscribers;
+        private long flushedArticles;
+        private LocalDateTime flushedLastActivityAt;
+
+        /**
+         * Moves the last activity forward.
+         *
+         * @return {@code true} if the last activity changed
+         */
+        private boolean advance(LocalDateTime at) {
+
+            LocalDateTime previous = lastActivityAt.getAndAccumulate(at, (current, candidate) ->
+                    current == null || candidate.isAfter(current) ? candidate : current);
+
+            return previous == null || at.isAfter(previous);
+        }
+
+        /**
+         * Returns the changes counted since the previous flush, even if there are none.
+         */
+        private Delta snapshot(Long topicId) {
+
+            long subscribers = this.subscribers.sum();
+            long articles = this.articles.sum();
+
+            return new Delta(
+                    this,
+                    topicId,
+                    subscribers - flushedSubscribers,
+                    articles - flushedArticles,
+                    null
+            );
+        }
+
+        private Delta delta(Long topicId) {
+
+            long subscribers = this.subscribers.sum();
+            long articles = this.articles.sum();
+            LocalDateTime at = lastActivityAt.get();
+
+            boolean active = at != null && !at.equals(flushedLastActivityAt);
+
+            if (subscribers == flushedSubscribers && articles == flushedArticles && !active) {
+                return null;
+            }
+
+            return new Delta(
+                    this,
+                    topicId,
+                    subscribers - flushedSubscribers,
+                    articles - flushedArticles,
+                    active ? at : null
+            );
+        }
+    }
+
+    /**
+     * Changes of one topic written by a flush.
+     */
+    private static final class Delta {
+
+        private final Counter counter;
+        private final Long topicId;
+        private final long subscribers;
+        private final long articles;
+        private final LocalDateTime lastActivityAt;
+
+        private Delta(Counter counter, Long topicId, long subscribers, long articles, LocalDateTime lastActivityAt) {
+            this.counter = counter;
+            this.topicId = topicId;
+            this.subscribers = subscribers;
+            this.articles = articles;
+            this.lastActivityAt = lastActivityAt;
+        }
+
+        private void markFlushed() {
+            counter.flushedSubscribers += subscribers;
+            counter.flushedArticles += articles;
+            if (lastActivityAt != null) {
+                counter.flushedLastActivityAt = lastActivityAt;
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.openclassrooms.mddapi.cache;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.security.SecureRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory version counters used to build HTTP entity tags.
+ *
+ * <p>
+ * Each counter is bumped when the data it covers changes:
+ * <ul>
+ *     <li>The topic catalog, when a topic is created</li>
+ *     <li>Each topic, when an article is published in it</li>
+ *     <li>Each article, when a comment is posted on it</li>
+ *     <li>Each user's subscriptions, on subscribe and unsubscribe</li>
+ *     <li>User profiles, when a user changes the name displayed on articles and comments</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Counters are bumped only once the change is committed, so a reader can never
+ * associate a new version with old data. Counters covering an in-memory view are
+ * bumped by that view, right after it has recorded the change: a bump registered
+ * when the transaction commits would run before the after-commit listeners that
+ * update the views. Every entity tag also includes a random instance identifier:
+ * tags issued before a restart never match again. Counters are local to the node.
+ * </p>
+ */
+@Component
+public class VersionCounters {
+
+    private final long instanceId = new SecureRandom().nextLong();
+
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final AtomicLong profilesVersion = new AtomicLong();
+
+    private final ConcurrentHashMap<Long, AtomicLong> topicVersions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, AtomicLong> articleVersions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, AtomicLong> subscriptionVersions = new ConcurrentHashMap<>();
+
+    /**
+     * Bumps the version of the topic catalog at once. Called by the {@link TopicCatalog}
+     * once its snapshot holds a committed topic, never from within the topic transaction.
+     */
+    public void bumpCatalog() {
+        catalogVersion.incrementAndGet();
+    }
+
+    /**
+     * Bumps the version of the user profiles once the current transaction commits,
+     * or at once outside of a transaction. Unlike {@link #bumpCatalog()},
+     * {@link #bumpTopic(Long)} and {@link #bumpSubscriptions(Long)}, it covers no in-memory
+     * view, so it is called from within the transaction changing the name of a user and
+     * deferred to its commit.
+     */
+    public void bumpProfiles() {
+        afterCommit(profilesVersion::incrementAndGet);
+    }
+
+    /**
+     * Bumps the version of a topic at once. Called by the feed views once they
+     * hold a committed article, never from within the article transaction.
+     *
+     * @param topicId the identifier of the topic
+     */
+    public void bumpTopic(Long topicId) {
+        counter(topicVersions, topicId).incrementAndGet();
+    }
+
+    /**
+     * Bumps the version of an article once the current transaction commits, or at once
+     * outside of a transaction. Unlike {@link #bumpTopic(Long)}, it covers no in-memory
+     * view and may be called from within the comment transaction, the bump being deferred
+     * to its commit. The {@code CommentWriter} calls it once the comment is committed.
+     *
+     * @param articleId the identifier of the article
+     */
+    public void bumpArticle(Long articleId) {
+        afterCommit(() -> counter(articleVersions, articleId).incrementAndGet());
+    }
+
+    /**
+     * Bumps the version of the subscriptions of a user at once. Called by the
+     * {@link SubscriptionIndex} once it holds a committed change, never from within
+     * the subscription transaction.
+     *
+     * @param userId the identifier of the user
+     */
+    public void bumpSubscriptions(Long userId) {
+        counter(subscriptionVersions, userId).incrementAndGet();
+    }
+
+    public long catalogVersion() {
+        return catalogVersion.get();
+    }
+
+    public long profilesVersion() {
+        return profilesVersion.get();
+    }
+
+    public long topicVersion(Long topicId) {
+        return version(topicVersions, topicId);
+    }
+
+    public long articleVersion(Long articleId) {
+        return version(articleVersions, articleId);
+    }
+
+    public long subscriptionsVersion(Long userId) {
+        return version(subscriptionVersions, userId);
+    }
+
+    /**
+     * Builds a strong entity tag from a sequence of values.
+     *
+     * @param parts the values identifying the state of the resource
+     * @return a quoted entity tag, prefixed by the instance identifier
+     */
+    public String etag(long... parts) {
+
+        long hash = 0xcbf29ce484222325L ^ instanceId;
+
+        for (long part : parts) {
+            hash ^= part;
+            hash *= 0x100000001b3L;
+            hash ^= hash >>> 29;
+        }
+
+        return "\"" + Long.toHexString(instanceId) + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * Runs an action once the current transaction commits, or immediately
+     * when no transaction is active.
+     *
+     * @param action the action to run
+     */
+    private static void afterCommit(Runnable action) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static AtomicLong counter(ConcurrentHashMap<Long, AtomicLong> counters, Long key) {
+        return counters.computeIfAbsent(key, k -> new AtomicLong());
+    }
+
+    private static long version(ConcurrentHashMap<Long, AtomicLong> counters, Long key) {
+        AtomicLong counter = counters.get(key);
+        return counter == null ? 0L : counter.get();
+    }
+}
@@ -0,0 +1,99 @@
+package com.openclassrooms.mddapi.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Configuration of the asynchronous executors and scheduled tasks used by background work.
+ *
+ * <p>
+ * Executors are bounded so that a burst of background work cannot
+ * exhaust memory; unless stated otherwise, when a queue is full the submitting
+ * thread runs the task itself, which slows the producer down instead of dropping work.
+ * </p>
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class AsyncConfig {
+
+    /**
+     * Executor running the fan-out of new articles into subscriber timelines.
+     *
+     * @return the bounded {@link Executor} used for timeline fan-out
+     */
+    @Bean(name = "timelineExecutor")
+    public Executor timelineExecutor() {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(4);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("timeline-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+
+        return executor;
+    }
+
+    /**
+     * Executor delivering server-sent events to connected clients.
+     *
+     * <p>
+     * Tasks rejected because the queue is full are not run by the caller:
+     * the events stay in the connection buffers and are sent on the next attempt.
+     * </p>
+     *
+     * @return the bounded {@link Executor} used to push events
+     */
+    @Bean(name = "sseExecutor")
+    public Executor sseExecutor() {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("sse-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        return executor;
+    }
+
+    /**
+     * Executor hashing and verifying passwords, kept apart from the request threads.
+     *
+     * <p>
+     * Its fixed number of threads caps the CPU spent on password hashing, so that a
+     * login storm cannot starve the other endpoints. Tasks rejected because the queue
+     * is full are not run by the caller: the request is answered with HTTP 503.
+     * </p>
+     *
+     * @param threads       number of hashing threads
+     * @param queueCapacity maximum number of pending hashing tasks
+     * @return the bounded {@link ThreadPoolTaskExecutor} used for password hashing
+     */
+    @Bean(name = "passwordExecutor")
+    public ThreadPoolTaskExecutor passwordExecutor(
+            @Value("${mdd.auth.hashing.threads:2}") int threads,
+            @Value("${mdd.auth.hashing.queue-capacity:64}") int queueCapacity
+    ) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+
+        return executor;
+    }
+}
@@ -0,0 +1,76 @@
+package com.openclassrooms.mddapi.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rate limiting rules, bound from the {@code mdd.rate-limit} properties.
+ *
+ * <p>
+ * Each named rule defines a token bucket: {@code capacity} requests can be sent in a burst,
+ * then the bucket refills at {@code per-minute} requests per minute. A rule with a
+ * {@code method} and a {@code path} (Ant pattern) is applied by the HTTP filter, with one
+ * bucket per key listed in {@code keys} ({@code ip}, {@code principal}). A rule without a
+ * path is applied by the service that references it by name, such as {@code login-email}.
+ * </p>
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "mdd.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Whether rate limiting is applied.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Maximum number of buckets kept in memory, all rules combined.
+     */
+    private int maxBuckets = 100_000;
+
+    /**
+     * Delay after which idle, fully refilled buckets are evicted.
+     */
+    private long evictionMs = 60_000;
+
+    /**
+     * Rules, by name.
+     */
+    private Map<String, Rule> rules = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Rule {
+
+        /**
+         * HTTP method of the limited route, or {@code null} for any method.
+         */
+        private String method;
+
+        /**
+         * Ant pattern of the limited route, or {@code null} for a rule applied by a service.
+         */
+        private String path;
+
+        /**
+         * Maximum number of requests accepted in a burst.
+         */
+        private int capacity = 10;
+
+        /**
+         * Number of requests added back to the bucket per minute.
+         */
+        private int perMinute = 10;
+
+        /**
+         * Keys identifying a client: {@code ip} and/or {@code principal}.
+         */
+        private List<String> keys = List.of("ip");
+    }
+}
@@ -1,16 +1,21 @@
 package com.openclassrooms.mddapi.controller;
 
 import com.openclassrooms.mddapi.dto.ArticleDto;
-import com.openclassrooms.mddapi.model.User;
 import com.openclassrooms.mddapi.payload.request.ArticleRequest;
 import com.openclassrooms.mddapi.payload.response.ArticleDetailResponse;
+import com.openclassrooms.mddapi.payload.response.FeedPageResponse;
+import com.openclassrooms.mddapi.security.AuthenticatedUser;
 import com.openclassrooms.mddapi.service.ArticleService;
+import com.openclassrooms.mddapi.service.FeedStreamService;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * REST controller responsible for managing article-related operations.
@@ -20,11 +25,18 @@ import java.util.List;
  * <ul>
  *     <li>Create a new article</li>
  *     <li>Retrieve a specific article by its identifier</li>
- *     <li>Retrieve the authenticated user's article feed</li>
+ *     <li>Retrieve the authenticated user's article feed, one page at a time</li>
+ *     <li>Stream the whole feed, or export a topic, as newline-delimited JSON</li>
+ *     <li>Push new articles of subscribed topics with server-sent events</li>
  * </ul>
  * </p>
  *
  * <p>
+ * Read endpoints return a strong {@code ETag} and answer
+ * {@code If-None-Match} requests with HTTP 304 when nothing changed.
+ * </p>
+ *
+ * <p>
  * All endpoints are mapped under the base path <b>/articles</b>.
  * </p>
  */
@@ -33,14 +45,18 @@ import java.util.List;
 public class ArticleController {
 
     private final ArticleService articleService;
+    private final FeedStreamService feedStreamService;
 
     /**
-     * Constructs an {@link ArticleController} with the required {@link ArticleService}.
+     * Constructs an {@link ArticleController} with the required services.
      *
-     * @param articleService the service responsible for article business logic
+     * @param articleService    the service responsible for article business logic
+     * @param feedStreamService the service pushing new articles to connected clients
      */
-    public ArticleController(ArticleService articleService) {
+    public ArticleController(ArticleService articleService,
+                             FeedStreamService feedStreamService) {
         this.articleService = articleService;
+        this.feedStreamService = feedStreamService;
     }
 
     /**
@@ -54,17 +70,17 @@ public class ArticleController {
      * @param request         the article creation request containing title, content, and other data
      * @param authentication  the authentication object containing the currently authenticated user
      * @return a {@link ResponseEntity} containing the created {@link ArticleDto}
-     * @throws ClassCastException if the authentication principal cannot be cast to {@link User}
+     * @throws ClassCastException if the authentication principal cannot be cast to {@link AuthenticatedUser}
      */
     @PostMapping
     public ResponseEntity<ArticleDto> createArticle(
             @RequestBody ArticleRequest request,
             Authentication authentication) {
 
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
 
         ArticleDto article =
-                articleService.createArticle(user.getId(), request);
+                articleService.createArticle(user.id(), request);
 
         return ResponseEntity.ok(article);
     }
@@ -72,39 +88,137 @@ public class ArticleController {
     /**
      * Retrieves the detailed information of an article by its identifier.
      *
-     * @param id the unique identifier of the article
+     * @param id         the unique identifier of the article
+     * @param webRequest the current request, used to evaluate {@code If-None-Match}
      * @return a {@link ResponseEntity} containing the {@link ArticleDetailResponse}
-     *         with full article details
+     *         with full article details, or HTTP 304 if the client copy is up to date
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ArticleDetailResponse> getArticle(@PathVariable Long id) {
+    public ResponseEntity<ArticleDetailResponse> getArticle(@PathVariable Long id,
+                                                            WebRequest webRequest) {
+
+        String etag = articleService.getArticleETag(id);
+
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
 
         ArticleDetailResponse articleDetailResponse = articleService.getArticleById(id);
-        return ResponseEntity.ok(articleDetailResponse);
+        return ResponseEntity.ok().eTag(etag).body(articleDetailResponse);
     }
 
     /**
-     * Retrieves the article feed for the authenticated user.
+     * Retrieves one page of the article feed for the authenticated user.
      *
      * <p>
-     * The feed typically contains articles relevant to the user,
-     * such as articles from subscribed authors or topics.
+     * The feed contains articles from the topics the user is subscribed to,
+     * most recent first. The first page is returned when no cursor is given;
+     * following pages are requested with the {@code nextCursor} of the previous page.
      * </p>
      *
+     * <p>
+     * With {@code sort=top}, the best articles by engagement and recency are returned
+     * instead, in a single page.
+     * </p>
+     *
+     * @param sort           the ordering, {@code top} for the ranked feed (optional)
+     * @param cursor         the opaque cursor returned with the previous page (optional)
+     * @param size           the requested number of articles per page (optional)
      * @param authentication the authentication object containing the currently authenticated user
-     * @return a {@link ResponseEntity} containing a list of {@link ArticleDto}
-     *         representing the user's feed
-     * @throws ClassCastException if the authentication principal cannot be cast to {@link User}
+     * @param webRequest     the current request, used to evaluate {@code If-None-Match}
+     * @return a {@link ResponseEntity} containing a {@link FeedPageResponse}
+     *         with the page of articles and the cursor of the next page,
+     *         or HTTP 304 if the client copy is up to date
+     * @throws ClassCastException if the authentication principal cannot be cast to {@link AuthenticatedUser}
      */
     @GetMapping
-    public ResponseEntity<List<ArticleDto>> getFeed(
+    public ResponseEntity<FeedPageResponse> getFeed(
+            @RequestParam(required = false) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            Authentication authentication,
+            WebRequest webRequest) {
+
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+
+        String etag = articleService.getFeedETag(user.id(), sort, cursor, size);
+
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        FeedPageResponse feed = ArticleService.SORT_TOP.equals(sort)
+                ? articleService.getTopFeed(user.id(), size)
+                : articleService.getFeed(user.id(), cursor, size);
+
+        return ResponseEntity.ok().eTag(etag).body(feed);
+    }
+
+    /**
+     * Streams the whole article feed of the authenticated user.
+     *
+     * <p>
+     * Selected when the client sends {@code Accept: application/x-ndjson}.
+     * Each line of the response is one article summary, most recent first.
+     * </p>
+     *
+     * @param authentication the authentication object containing the currently authenticated user
+     * @return a {@link ResponseEntity} streaming the feed as newline-delimited JSON
+     * @throws ClassCastException if the authentication principal cannot be cast to {@link AuthenticatedUser}
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamFeed(
             Authentication authentication) {
 
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+        Long userId = user.id();
+
+        StreamingResponseBody body = out -> articleService.streamFeed(userId, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Exports every article of a topic, full content included.
+     *
+     * <p>
+     * Each line of the response is one article, most recent first.
+     * </p>
+     *
+     * @param topicId the unique identifier of the exported topic
+     * @return a {@link ResponseEntity} streaming the articles as newline-delimited JSON
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportTopic(
+            @RequestParam Long topicId) {
+
+        StreamingResponseBody body = out -> articleService.exportTopic(topicId, out);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Opens a server-sent events stream notifying the authenticated user of new articles.
+     *
+     * <p>
+     * An {@code article} event carrying the article and topic identifiers is sent
+     * each time an article is published in one of the user's subscribed topics.
+     * Heartbeat comments are sent periodically to keep the connection open.
+     * </p>
+     *
+     * @param authentication the authentication object containing the currently authenticated user
+     * @return the {@link SseEmitter} bound to the connection
+     * @throws ClassCastException if the authentication principal cannot be cast to {@link AuthenticatedUser}
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNewArticles(Authentication authentication) {
 
-        List<ArticleDto> articles =
-                articleService.getFeed(user.getId());
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
 
-        return ResponseEntity.ok(articles);
+        return feedStreamService.connect(user.id());
     }
-}
\ No newline at end of file
+}
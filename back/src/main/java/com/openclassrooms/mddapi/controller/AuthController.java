@@ -2,6 +2,7 @@ package com.openclassrooms.mddapi.controller;
 
 import com.openclassrooms.mddapi.payload.response.AuthResponse;
 import com.openclassrooms.mddapi.payload.request.LoginRequest;
+import com.openclassrooms.mddapi.payload.request.RefreshRequest;
 import com.openclassrooms.mddapi.payload.request.RegisterRequest;
 import com.openclassrooms.mddapi.service.AuthService;
 import org.springframework.http.ResponseEntity;
@@ -15,6 +16,8 @@ import org.springframework.web.bind.annotation.*;
  * <ul>
  *     <li>User authentication (login)</li>
  *     <li>User registration (account creation)</li>
+ *     <li>Access token renewal (refresh)</li>
+ *     <li>Session closing (logout)</li>
  * </ul>
  * </p>
  *
@@ -78,4 +81,37 @@ public class AuthController {
 
         return ResponseEntity.ok(response);
     }
+
+    /**
+     * Issues a new short-lived access token from a refresh token.
+     *
+     * <p>
+     * The refresh token is rotated: the response contains the one to use next time.
+     * </p>
+     *
+     * @param request the request containing the current refresh token
+     * @return a {@link ResponseEntity} containing the {@link AuthResponse}
+     *         with the new access and refresh tokens
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthResponse> refresh(
+            @RequestBody RefreshRequest request) {
+
+        return ResponseEntity.ok(authService.refresh(request));
+    }
+
+    /**
+     * Closes the session of a refresh token.
+     *
+     * @param request the request containing the refresh token of the session
+     * @return a {@link ResponseEntity} with HTTP 204 (No Content)
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(
+            @RequestBody RefreshRequest request) {
+
+        authService.logout(request);
+
+        return ResponseEntity.noContent().build();
+    }
 }
\ No newline at end of file
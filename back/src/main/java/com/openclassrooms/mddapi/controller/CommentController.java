@@ -1,14 +1,16 @@
 package com.openclassrooms.mddapi.controller;
 
-import com.openclassrooms.mddapi.model.User;
 import com.openclassrooms.mddapi.payload.request.CommentRequest;
+import com.openclassrooms.mddapi.payload.response.CommentPageResponse;
 import com.openclassrooms.mddapi.payload.response.CommentResponse;
+import com.openclassrooms.mddapi.security.AuthenticatedUser;
 import com.openclassrooms.mddapi.service.CommentService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import javax.validation.Valid;
 
 /**
  * REST controller responsible for managing comment-related operations.
@@ -17,7 +19,7 @@ import java.util.List;
  * This controller exposes endpoints to:
  * <ul>
  *     <li>Create a comment on a specific article</li>
- *     <li>Retrieve all comments associated with an article</li>
+ *     <li>Retrieve the comments associated with an article, one page at a time</li>
  * </ul>
  * </p>
  *
@@ -45,46 +47,68 @@ public class CommentController {
      * Creates a new comment for a specific article.
      *
      * <p>
-     * The authenticated user's identifier is extracted from the security context
+     * The authenticated user is extracted from the security context
      * and used to associate the comment with its author.
      * </p>
      *
+     * <p>
+     * A comment not committed yet is answered with HTTP 202: its identifier is final, but it
+     * becomes visible once written. This is always the case with the {@code async} comment
+     * durability, and with {@code group-commit} when the commit takes too long; the client
+     * must not retry it. When the write-behind queue is full, the request is answered with
+     * HTTP 503 and nothing is written.
+     * A blank content, or one longer than 255 characters, is rejected with HTTP 400
+     * before anything is queued.
+     * </p>
+     *
      * @param articleId       the unique identifier of the article on which the comment is posted
      * @param request         the request containing the comment content
      * @param authentication  the authentication object containing the currently authenticated user
-     * @return a {@link ResponseEntity} containing the created {@link CommentResponse}
-     * @throws ClassCastException if the authentication principal cannot be cast to {@link User}
+     * @return a {@link ResponseEntity} containing the created {@link CommentResponse}, with
+     *         HTTP 200 once committed or HTTP 202 while still queued
+     * @throws ClassCastException if the authentication principal cannot be cast to {@link AuthenticatedUser}
      */
     @PostMapping("/{articleId}/comments")
     public ResponseEntity<CommentResponse> createComment(
             @PathVariable Long articleId,
-            @RequestBody CommentRequest request,
+            @Valid @RequestBody CommentRequest request,
             Authentication authentication) {
 
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
 
-        CommentResponse response = commentService.createComment(
+        CommentService.CreatedComment created = commentService.createComment(
                 articleId,
                 request.getContent(),
-                user.getId()
+                user
         );
 
-        return ResponseEntity.ok(response);
+        return ResponseEntity
+                .status(created.committed() ? HttpStatus.OK : HttpStatus.ACCEPTED)
+                .body(created.comment());
     }
 
     /**
-     * Retrieves all comments associated with a specific article.
+     * Retrieves one page of the comments associated with a specific article.
+     *
+     * <p>
+     * The first page is returned when no cursor is given; following pages are
+     * requested with the {@code nextCursor} of the previous page.
+     * </p>
      *
      * @param articleId the unique identifier of the article
-     * @return a {@link ResponseEntity} containing a list of {@link CommentResponse}
-     *         representing all comments linked to the article
+     * @param after     the opaque cursor returned with the previous page (optional)
+     * @param size      the requested number of comments per page (optional)
+     * @return a {@link ResponseEntity} containing a {@link CommentPageResponse}
+     *         with the page of comments and the cursor of the next page
      */
     @GetMapping("/{articleId}/comments")
-    public ResponseEntity<List<CommentResponse>> getComments(
-            @PathVariable Long articleId) {
+    public ResponseEntity<CommentPageResponse> getComments(
+            @PathVariable Long articleId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer size) {
 
         return ResponseEntity.ok(
-                commentService.getCommentsByArticle(articleId)
+                commentService.getCommentPage(articleId, after, size)
         );
     }
 }
\ No newline at end of file
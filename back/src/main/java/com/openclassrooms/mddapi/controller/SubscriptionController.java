@@ -1,12 +1,14 @@
 package com.openclassrooms.mddapi.controller;
 
 import com.openclassrooms.mddapi.dto.TopicDto;
-import com.openclassrooms.mddapi.model.User;
+import com.openclassrooms.mddapi.payload.request.SubscriptionsRequest;
+import com.openclassrooms.mddapi.security.AuthenticatedUser;
 import com.openclassrooms.mddapi.service.SubscriptionService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import javax.validation.Valid;
 import java.util.List;
 
 /**
@@ -18,6 +20,7 @@ import java.util.List;
  *     <li>Subscribe to a topic</li>
  *     <li>Unsubscribe from a topic</li>
  *     <li>Retrieve the authenticated user's subscribed topics</li>
+ *     <li>Replace all the authenticated user's subscriptions at once</li>
  * </ul>
  * </p>
  *
@@ -51,16 +54,16 @@ public class SubscriptionController {
      * @param topicId        the unique identifier of the topic to subscribe to
      * @param authentication the authentication object containing the currently authenticated user
      * @return a {@link ResponseEntity} with HTTP 200 status if the subscription is successful
-     * @throws ClassCastException if the authentication principal cannot be cast to {@link User}
+     * @throws ClassCastException if the authentication principal cannot be cast to {@link AuthenticatedUser}
      */
     @PostMapping("/{topicId}")
     public ResponseEntity<Void> subscribe(
             @PathVariable Long topicId,
             Authentication authentication) {
 
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
 
-        subscriptionService.subscribe(user.getId(), topicId);
+        subscriptionService.subscribe(user.id(), topicId);
 
         return ResponseEntity.ok().build();
     }
@@ -76,16 +79,16 @@ public class SubscriptionController {
      * @param topicId        the unique identifier of the topic to unsubscribe from
      * @param authentication the authentication object containing the currently authenticated user
      * @return a {@link ResponseEntity} with HTTP 204 (No Content) status if the operation is successful
-     * @throws ClassCastException if the authentication principal cannot be cast to {@link User}
+     * @throws ClassCastException if the authentication principal cannot be cast to {@link AuthenticatedUser}
      */
     @DeleteMapping("/{topicId}")
     public ResponseEntity<Void> unsubscribe(
             @PathVariable Long topicId,
             Authentication authentication) {
 
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
 
-        subscriptionService.unsubscribe(user.getId(), topicId);
+        subscriptionService.unsubscribe(user.id(), topicId);
 
         return ResponseEntity.noContent().build();
     }
@@ -96,16 +99,43 @@ public class SubscriptionController {
      * @param authentication the authentication object containing the currently authenticated user
      * @return a {@link ResponseEntity} containing a list of {@link TopicDto}
      *         representing the user's subscribed topics
-     * @throws ClassCastException if the authentication principal cannot be cast to {@link User}
+     * @throws ClassCastException if the authentication principal cannot be cast to {@link AuthenticatedUser}
      */
     @GetMapping("/me")
     public ResponseEntity<List<TopicDto>> getMySubscriptions(
             Authentication authentication) {
 
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
 
         List<TopicDto> subscriptions =
-                subscriptionService.getUserTopics(user.getId());
+                subscriptionService.getUserTopics(user.id());
+
+        return ResponseEntity.ok(subscriptions);
+    }
+
+    /**
+     * Replaces the subscriptions of the authenticated user with the given set of topics.
+     *
+     * <p>
+     * Topics missing from the current subscriptions are subscribed to, and subscriptions
+     * missing from the set are removed, in a single transaction. The resulting list is
+     * returned so that no follow-up request is needed.
+     * </p>
+     *
+     * @param request        the request containing the identifiers of the desired topics
+     * @param authentication the authentication object containing the currently authenticated user
+     * @return a {@link ResponseEntity} containing the resulting list of {@link TopicDto}
+     * @throws ClassCastException if the authentication principal cannot be cast to {@link AuthenticatedUser}
+     */
+    @PutMapping("/me")
+    public ResponseEntity<List<TopicDto>> replaceMySubscriptions(
+            @Valid @RequestBody SubscriptionsRequest request,
+            Authentication authentication) {
+
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+
+        List<TopicDto> subscriptions =
+                subscriptionService.replaceSubscriptions(user.id(), request.getTopicIds());
 
         return ResponseEntity.ok(subscriptions);
     }
@@ -1,16 +1,21 @@
 package com.openclassrooms.mddapi.controller;
 
 import com.openclassrooms.mddapi.dto.TopicDto;
-import com.openclassrooms.mddapi.model.User;
+import com.openclassrooms.mddapi.dto.TopicStatsDto;
 import com.openclassrooms.mddapi.payload.request.TopicRequest;
 import com.openclassrooms.mddapi.payload.response.TopicResponse;
+import com.openclassrooms.mddapi.security.AuthenticatedUser;
 import com.openclassrooms.mddapi.service.TopicService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
+
 /**
  * REST controller responsible for managing topic-related operations.
  *
@@ -18,6 +23,7 @@ import java.util.List;
  * This controller exposes endpoints to:
  * <ul>
  *     <li>Retrieve all available topics with subscription status for the authenticated user</li>
+ *     <li>Retrieve the statistics of every topic, or of a single topic</li>
  *     <li>Create a new topic</li>
  * </ul>
  * </p>
@@ -47,23 +53,72 @@ public class TopicController {
      *
      * <p>
      * The authenticated user's identifier is extracted from the security context
-     * to determine which topics the user is currently subscribed to.
+     * to determine which topics the user is currently subscribed to. The statistics
+     * of the topics are served separately by {@link #getAllStats(WebRequest)}.
      * </p>
      *
      * @param authentication the authentication object containing the currently authenticated user
-     * @return a {@link ResponseEntity} containing a list of {@link TopicResponse}
-     *         including subscription information
-     * @throws ClassCastException if the authentication principal cannot be cast to {@link User}
+     * @param webRequest     the current request, used to evaluate {@code If-None-Match}
+     * @return a {@link ResponseEntity} containing the JSON list of {@link TopicResponse}
+     *         including subscription information, or HTTP 304 if the client copy is up to date
+     * @throws ClassCastException if the authentication principal cannot be cast to {@link AuthenticatedUser}
      */
     @GetMapping
-    public ResponseEntity<List<TopicResponse>> getAll(Authentication authentication) {
+    public ResponseEntity<byte[]> getAll(Authentication authentication,
+                                         WebRequest webRequest) {
+
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
+
+        String etag = topicService.getTopicsETag(user.id());
 
-        User user = (User) authentication.getPrincipal();
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
 
-        List<TopicResponse> topicResponses =
-                topicService.getAllTopicsWithSubscription(user.getId());
+        byte[] topicResponses =
+                topicService.getAllTopicsWithSubscriptionJson(user.id());
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(topicResponses);
+    }
 
-        return ResponseEntity.ok(topicResponses);
+    /**
+     * Retrieves the statistics of every topic.
+     *
+     * <p>
+     * The statistics are the same for every user, so they are tagged separately
+     * from the topic list: activity on a topic does not invalidate the topic list.
+     * </p>
+     *
+     * @param webRequest the current request, used to evaluate {@code If-None-Match}
+     * @return a {@link ResponseEntity} containing the list of {@link TopicStatsDto},
+     *         or HTTP 304 if the client copy is up to date
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<TopicStatsDto>> getAllStats(WebRequest webRequest) {
+
+        String etag = topicService.getTopicStatsETag();
+
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(topicService.getAllTopicStats());
+    }
+
+    /**
+     * Retrieves the statistics of a topic.
+     *
+     * @param id the identifier of the topic
+     * @return a {@link ResponseEntity} containing the {@link TopicStatsDto}
+     */
+    @GetMapping("/{id}/stats")
+    public ResponseEntity<TopicStatsDto> getStats(@PathVariable Long id) {
+        return ResponseEntity.ok(topicService.getTopicStats(id));
     }
 
     /**
@@ -1,9 +1,9 @@
 package com.openclassrooms.mddapi.controller;
 
 import com.openclassrooms.mddapi.dto.UserDto;
-import com.openclassrooms.mddapi.model.User;
 import com.openclassrooms.mddapi.payload.request.UpdateUserRequest;
 import com.openclassrooms.mddapi.payload.response.UserResponse;
+import com.openclassrooms.mddapi.security.AuthenticatedUser;
 import com.openclassrooms.mddapi.service.UserService;
 
 import org.springframework.http.ResponseEntity;
@@ -51,15 +51,15 @@ public class UserController {
      * @param authentication the authentication object containing the currently authenticated user
      * @return a {@link ResponseEntity} containing the {@link UserResponse}
      *         representing the user's profile information
-     * @throws ClassCastException if the authentication principal cannot be cast to {@link User}
+     * @throws ClassCastException if the authentication principal cannot be cast to {@link AuthenticatedUser}
      */
     @GetMapping("/me")
     public ResponseEntity<UserResponse> getCurrentUser(Authentication authentication) {
 
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
 
         UserResponse userResponse =
-                userService.getUserById(user.getId());
+                userService.getUserById(user.id());
 
         return ResponseEntity.ok(userResponse);
     }
@@ -69,24 +69,33 @@ public class UserController {
      *
      * <p>
      * The authenticated user's identifier is extracted from the security context
-     * and used to apply the requested updates.
+     * and used to apply the requested updates. On a password change, every session
+     * of the user is revoked except the one of the current access token.
      * </p>
      *
      * @param request        the request containing updated user information
      * @param authentication the authentication object containing the currently authenticated user
      * @return a {@link ResponseEntity} containing the updated {@link UserResponse}
-     * @throws ClassCastException if the authentication principal cannot be cast to {@link User}
+     * @throws ClassCastException if the authentication principal cannot be cast to {@link AuthenticatedUser}
      */
     @PutMapping("/me")
     public ResponseEntity<UserResponse> updateUser(
             @RequestBody UpdateUserRequest request,
             Authentication authentication) {
 
-        User user = (User) authentication.getPrincipal();
+        AuthenticatedUser user = (AuthenticatedUser) authentication.getPrincipal();
 
         UserResponse updatedUserResponse =
-                userService.updateUser(user.getId(), request);
+                userService.updateUser(user.id(), sessionId(authentication), request);
 
         return ResponseEntity.ok(updatedUserResponse);
     }
-}
\ No newline at end of file
+
+    /**
+     * Returns the session of the current access token, set as authentication details
+     * by the JWT filter.
+     */
+    private static String sessionId(Authentication authentication) {
+        return authentication.getDetails() instanceof String sessionId ? sessionId : null;
+    }
+}
@@ -0,0 +1,18 @@
+package com.openclassrooms.mddapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleActivityDto {
+    private Long id;
+    private LocalDateTime createdAt;
+    private Long commentCount;
+}
@@ -0,0 +1,22 @@
+package com.openclassrooms.mddapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Minimal view of an article, read from its primary key without joining its author
+ * or topic: enough to validate a comment and describe it to the listeners.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleRefDto {
+    private Long id;
+    private Long topicId;
+    private LocalDateTime createdAt;
+}
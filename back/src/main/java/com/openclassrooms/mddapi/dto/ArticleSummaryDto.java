@@ -0,0 +1,30 @@
+package com.openclassrooms.mddapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lightweight representation of an article used by list views such as the feed.
+ *
+ * <p>
+ * It carries the excerpt and reading time computed when the article was written
+ * instead of the full content, which is only returned by the article detail.
+ * </p>
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArticleSummaryDto {
+    private Long id;
+    private String title;
+    private String excerpt;
+    private Integer readingTimeMinutes;
+    private String authorName;
+    private String topicName;
+    private LocalDateTime createdAt;
+}
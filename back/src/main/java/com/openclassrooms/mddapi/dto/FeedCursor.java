@@ -0,0 +1,74 @@
+package com.openclassrooms.mddapi.dto;
+
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last item returned in a keyset-paginated list,
+ * such as a feed page or a page of comments.
+ *
+ * <p>
+ * The cursor is the {@code (createdAt, id)} pair of the last item
+ * sent to the client. The next page starts strictly after that pair,
+ * which lets the repository seek directly into the
+ * {@code (created_at, id)} ordering instead of skipping rows with an OFFSET.
+ * </p>
+ *
+ * <p>
+ * Cursors are exchanged with clients as opaque URL-safe Base64 tokens.
+ * </p>
+ */
+@Getter
+public class FeedCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime createdAt;
+    private final Long id;
+
+    public FeedCursor(LocalDateTime createdAt, Long id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    /**
+     * Encodes the cursor into an opaque token.
+     *
+     * @return the URL-safe token representing this cursor
+     */
+    public String encode() {
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token previously produced by {@link #encode()}.
+     *
+     * @param token the opaque cursor token
+     * @return the decoded {@link FeedCursor}
+     * @throws RuntimeException if the token is malformed
+     */
+    public static FeedCursor decode(String token) {
+        try {
+            String raw = new String(
+                    Base64.getUrlDecoder().decode(token),
+                    StandardCharsets.UTF_8
+            );
+
+            int separator = raw.lastIndexOf(SEPARATOR);
+
+            return new FeedCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+}
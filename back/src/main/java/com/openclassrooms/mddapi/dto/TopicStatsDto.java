@@ -0,0 +1,38 @@
+package com.openclassrooms.mddapi.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopicStatsDto {
+
+    private Long topicId;
+    private long subscriberCount;
+    private long articleCount;
+    private LocalDateTime lastActivityAt;
+
+    /**
+     * Builds the statistics counted from the database, the last activity being
+     * the latest of the last article and the last comment.
+     */
+    public TopicStatsDto(Long topicId,
+                         Long subscriberCount,
+                         Long articleCount,
+                         LocalDateTime lastArticleAt,
+                         LocalDateTime lastCommentAt) {
+        this.topicId = topicId;
+        this.subscriberCount = subscriberCount == null ? 0 : subscriberCount;
+        this.articleCount = articleCount == null ? 0 : articleCount;
+        this.lastActivityAt = lastCommentAt == null
+                || (lastArticleAt != null && lastArticleAt.isAfter(lastCommentAt))
+                ? lastArticleAt
+                : lastCommentAt;
+    }
+}
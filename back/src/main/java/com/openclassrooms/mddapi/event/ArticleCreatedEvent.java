@@ -0,0 +1,30 @@
+package com.openclassrooms.mddapi.event;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Application event published when a new article has been persisted.
+ *
+ * <p>
+ * The event only carries identifiers and the creation timestamp so that
+ * listeners running after the transaction, possibly on another thread,
+ * never touch a detached entity.
+ * </p>
+ */
+@Getter
+public class ArticleCreatedEvent {
+
+    private final Long articleId;
+    private final Long topicId;
+    private final Long authorId;
+    private final LocalDateTime createdAt;
+
+    public ArticleCreatedEvent(Long articleId, Long topicId, Long authorId, LocalDateTime createdAt) {
+        this.articleId = articleId;
+        this.topicId = topicId;
+        this.authorId = authorId;
+        this.createdAt = createdAt;
+    }
+}
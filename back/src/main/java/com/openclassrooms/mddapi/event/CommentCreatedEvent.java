@@ -0,0 +1,35 @@
+package com.openclassrooms.mddapi.event;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Application event published when a new comment has been persisted.
+ *
+ * <p>
+ * Like {@link ArticleCreatedEvent}, it only carries identifiers and timestamps
+ * so that listeners never touch a detached entity.
+ * </p>
+ */
+@Getter
+public class CommentCreatedEvent {
+
+    private final Long articleId;
+    private final Long topicId;
+    private final Long authorId;
+    private final LocalDateTime articleCreatedAt;
+    private final LocalDateTime createdAt;
+
+    public CommentCreatedEvent(Long articleId,
+                               Long topicId,
+                               Long authorId,
+                               LocalDateTime articleCreatedAt,
+                               LocalDateTime createdAt) {
+        this.articleId = articleId;
+        this.topicId = topicId;
+        this.authorId = authorId;
+        this.articleCreatedAt = articleCreatedAt;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,25 @@
+package com.openclassrooms.mddapi.event;
+
+import lombok.Getter;
+
+/**
+ * Application event published when a user subscribes to or unsubscribes from a topic.
+ *
+ * <p>
+ * Listeners are expected to run after the transaction has committed, so that
+ * in-memory views never reflect a subscription that was rolled back.
+ * </p>
+ */
+@Getter
+public class SubscriptionChangedEvent {
+
+    private final Long userId;
+    private final Long topicId;
+    private final boolean subscribed;
+
+    public SubscriptionChangedEvent(Long userId, Long topicId, boolean subscribed) {
+        this.userId = userId;
+        this.topicId = topicId;
+        this.subscribed = subscribed;
+    }
+}
@@ -0,0 +1,25 @@
+package com.openclassrooms.mddapi.event;
+
+import lombok.Getter;
+
+/**
+ * Application event published when a new topic has been persisted.
+ *
+ * <p>
+ * The event carries a copy of the topic fields so that listeners can update
+ * their in-memory views without reading the topic back.
+ * </p>
+ */
+@Getter
+public class TopicCreatedEvent {
+
+    private final Long topicId;
+    private final String name;
+    private final String description;
+
+    public TopicCreatedEvent(Long topicId, String name, String description) {
+        this.topicId = topicId;
+        this.name = name;
+        this.description = description;
+    }
+}
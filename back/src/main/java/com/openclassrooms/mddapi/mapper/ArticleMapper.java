@@ -10,6 +10,16 @@ import java.time.LocalDateTime;
 
 public class ArticleMapper {
 
+    /**
+     * Maximum length of the excerpt stored with each article.
+     */
+    static final int EXCERPT_LENGTH = 200;
+
+    /**
+     * Average reading speed used to estimate reading times.
+     */
+    static final int WORDS_PER_MINUTE = 200;
+
     public static Article toEntity(ArticleRequest request,
                                    User author,
                                    Topic topic) {
@@ -17,6 +27,8 @@ public class ArticleMapper {
         Article article = new Article();
         article.setTitle(request.getTitle());
         article.setContent(request.getContent());
+        article.setExcerpt(toExcerpt(request.getContent()));
+        article.setReadingTimeMinutes(toReadingTimeMinutes(request.getContent()));
         article.setCreatedAt(LocalDateTime.now());
         article.setAuthor(author);
         article.setTopic(topic);
@@ -36,4 +48,49 @@ public class ArticleMapper {
 
         return dto;
     }
+
+    /**
+     * Builds the excerpt of a content, cut on a word boundary when possible.
+     *
+     * @param content the full content
+     * @return the first {@value #EXCERPT_LENGTH} characters of the content,
+     *         followed by an ellipsis when it was truncated
+     */
+    public static String toExcerpt(String content) {
+
+        if (content == null) {
+            return null;
+        }
+
+        String text = content.strip();
+
+        if (text.length() <= EXCERPT_LENGTH) {
+            return text;
+        }
+
+        int end = text.lastIndexOf(' ', EXCERPT_LENGTH);
+
+        if (end <= 0) {
+            end = EXCERPT_LENGTH;
+        }
+
+        return text.substring(0, end).stripTrailing() + "…";
+    }
+
+    /**
+     * Estimates the reading time of a content.
+     *
+     * @param content the full content
+     * @return the reading time in minutes, at least 1
+     */
+    public static int toReadingTimeMinutes(String content) {
+
+        if (content == null || content.isBlank()) {
+            return 1;
+        }
+
+        int words = content.strip().split("\\s+").length;
+
+        return Math.max(1, (words + WORDS_PER_MINUTE - 1) / WORDS_PER_MINUTE);
+    }
 }
@@ -20,10 +20,15 @@ public class CommentMapper {
     }
 
     public CommentResponse toResponse(Comment comment) {
+        return toResponse(comment, comment.getAuthor().getUsername());
+    }
+
+    public CommentResponse toResponse(Comment comment, String authorName) {
         CommentResponse response = new CommentResponse();
+        response.setId(comment.getId());
         response.setContent(comment.getContent());
         response.setCreatedAt(comment.getCreatedAt());
-        response.setAuthorName(comment.getAuthor().getUsername());
+        response.setAuthorName(authorName);
         return response;
     }
 
@@ -0,0 +1,103 @@
+package com.openclassrooms.mddapi.migration;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Helpers shared by the Java migrations to change the schema only where needed.
+ *
+ * <p>
+ * Databases baselined from {@code ddl-auto=update} may already have the tables, columns
+ * and indexes that Hibernate created from the entities of the release they ran. The
+ * migrations therefore check the current schema before each change.
+ * </p>
+ */
+final class Schema {
+
+    private Schema() {
+    }
+
+    /**
+     * Runs a statement.
+     */
+    static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate(sql);
+        }
+    }
+
+    /**
+     * Adds a column to a table, unless the table already has a column of that name.
+     *
+     * @return {@code true} if the column was added
+     */
+    static boolean addColumn(Connection connection, String table, String column,
+                             String definition) throws SQLException {
+
+        if (columnNames(connection, table).contains(column)) {
+            return false;
+        }
+
+        execute(connection, "ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        return true;
+    }
+
+    /**
+     * Creates an index, unless the table already has an index of that name.
+     */
+    static void createIndex(Connection connection, String table, String name,
+                            boolean unique, String columns) throws SQLException {
+
+        if (indexNames(connection, table).contains(name)) {
+            return;
+        }
+
+        execute(connection, "CREATE " + (unique ? "UNIQUE " : "") + "INDEX " + name
+                + " ON " + table + " (" + columns + ")");
+    }
+
+    /**
+     * Returns the lower-cased names of the columns of a table in the current schema.
+     */
+    private static Set<String> columnNames(Connection connection, String table) throws SQLException {
+
+        DatabaseMetaData metaData = connection.getMetaData();
+        Set<String> names = new HashSet<>();
+
+        try (ResultSet columns = metaData.getColumns(
+                connection.getCatalog(), connection.getSchema(), table, null)) {
+            while (columns.next()) {
+                names.add(columns.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+            }
+        }
+
+        return names;
+    }
+
+    /**
+     * Returns the lower-cased names of the indexes of a table in the current schema.
+     */
+    private static Set<String> indexNames(Connection connection, String table) throws SQLException {
+
+        DatabaseMetaData metaData = connection.getMetaData();
+        Set<String> names = new HashSet<>();
+
+        try (ResultSet indexes = metaData.getIndexInfo(
+                connection.getCatalog(), connection.getSchema(), table, false, true)) {
+            while (indexes.next()) {
+                String name = indexes.getString("INDEX_NAME");
+                if (name != null) {
+                    names.add(name.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+
+        return names;
+    }
+}
@@ -0,0 +1,53 @@
+package com.openclassrooms.mddapi.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+
+/**
+ * Creates the composite indexes used by the hot queries.
+ *
+ * <p>
+ * The indexes created are:
+ * <ul>
+ *     <li>{@code uk_users_topics_user_topic}: unique {@code (user_id, topic_id)}, for the
+ *     subscriptions of a user and the idempotent subscribe</li>
+ *     <li>{@code idx_articles_topic_created}: {@code (topic_id, created_at DESC, id DESC)},
+ *     for the feed and the articles of a topic</li>
+ *     <li>{@code idx_articles_author_created}: {@code (author_id, created_at DESC, id DESC)},
+ *     for the articles of an author</li>
+ *     <li>{@code idx_comments_article_created}: {@code (article_id, created_at DESC, id DESC)},
+ *     for the comment pages of an article</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Databases baselined from {@code ddl-auto=update} may already have some of them (the
+ * unique subscription index was declared on the entity), so each index is only created
+ * when no index of that name exists. Duplicate subscriptions, which the unique index
+ * would reject, are removed first, keeping the oldest row.
+ * </p>
+ */
+public class V3__Performance_indexes extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+
+        Connection connection = context.getConnection();
+
+        Schema.execute(connection,
+                "DELETE FROM users_topics WHERE id NOT IN ("
+                        + "SELECT id FROM (SELECT MIN(id) AS id FROM users_topics GROUP BY user_id, topic_id) kept)"
+        );
+
+        Schema.createIndex(connection, "users_topics", "uk_users_topics_user_topic", true,
+                "user_id, topic_id");
+        Schema.createIndex(connection, "articles", "idx_articles_topic_created", false,
+                "topic_id, created_at DESC, id DESC");
+        Schema.createIndex(connection, "articles", "idx_articles_author_created", false,
+                "author_id, created_at DESC, id DESC");
+        Schema.createIndex(connection, "comments", "idx_comments_article_created", false,
+                "article_id, created_at DESC, id DESC");
+    }
+}
@@ -0,0 +1,43 @@
+package com.openclassrooms.mddapi.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+
+/**
+ * Creates the {@code user_timelines} table of the fan-out-on-write feed, with its indexes:
+ * <ul>
+ *     <li>{@code idx_user_timelines_feed}: {@code (user_id, created_at, article_id)},
+ *     for the feed pages of a user</li>
+ *     <li>{@code idx_user_timelines_user_topic}: {@code (user_id, topic_id)}, to prune
+ *     a topic from a timeline on unsubscribe</li>
+ *     <li>{@code uk_user_timelines_user_article}: unique {@code (user_id, article_id)}, so that
+ *     a fan-out racing a backfill cannot store an article twice in a timeline</li>
+ * </ul>
+ */
+public class V4__User_timelines extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+
+        Connection connection = context.getConnection();
+
+        Schema.execute(connection, """
+                CREATE TABLE IF NOT EXISTS user_timelines (
+                    id         BIGINT      NOT NULL AUTO_INCREMENT,
+                    user_id    BIGINT      NOT NULL,
+                    article_id BIGINT      NOT NULL,
+                    topic_id   BIGINT      NOT NULL,
+                    created_at DATETIME(6) NOT NULL,
+                    PRIMARY KEY (id)
+                ) ENGINE = InnoDB""");
+
+        Schema.createIndex(connection, "user_timelines", "idx_user_timelines_feed", false,
+                "user_id, created_at, article_id");
+        Schema.createIndex(connection, "user_timelines", "idx_user_timelines_user_topic", false,
+                "user_id, topic_id");
+        Schema.createIndex(connection, "user_timelines", "uk_user_timelines_user_article", true,
+                "user_id, article_id");
+    }
+}
@@ -0,0 +1,120 @@
+package com.openclassrooms.mddapi.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Adds the excerpt and the estimated reading time of the articles, displayed in the
+ * list views instead of the full content.
+ *
+ * <p>
+ * The existing articles are then filled in by identifier, {@value #BATCH_SIZE} at a time.
+ * Only the articles missing one of them are updated.
+ * </p>
+ *
+ * <p>
+ * The excerpt and reading time are computed by a copy of the rules the application applied
+ * when this migration was written, so that later changes to
+ * {@code com.openclassrooms.mddapi.mapper.ArticleMapper} never change what it writes.
+ * </p>
+ */
+public class V5__Article_summaries extends BaseJavaMigration {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final int EXCERPT_LENGTH = 200;
+
+    private static final int WORDS_PER_MINUTE = 200;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+
+        Connection connection = context.getConnection();
+
+        Schema.addColumn(connection, "articles", "excerpt", "VARCHAR(300)");
+        Schema.addColumn(connection, "articles", "reading_time_minutes", "INTEGER");
+
+        backfill(connection);
+    }
+
+    private void backfill(Connection connection) throws SQLException {
+
+        try (PreparedStatement select = connection.prepareStatement(
+                     "SELECT id, content FROM articles "
+                             + "WHERE id > ? AND (excerpt IS NULL OR reading_time_minutes IS NULL) "
+                             + "ORDER BY id LIMIT " + BATCH_SIZE);
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE articles SET excerpt = ?, reading_time_minutes = ? WHERE id = ?")) {
+
+            long afterId = 0;
+            int selected;
+
+            do {
+                selected = 0;
+                select.setLong(1, afterId);
+
+                try (ResultSet rows = select.executeQuery()) {
+                    while (rows.next()) {
+                        afterId = rows.getLong("id");
+                        String content = rows.getString("content");
+
+                        update.setString(1, toExcerpt(content));
+                        update.setInt(2, toReadingTimeMinutes(content));
+                        update.setLong(3, afterId);
+                        update.addBatch();
+                        selected++;
+                    }
+                }
+
+                if (selected > 0) {
+                    update.executeBatch();
+                }
+
+            } while (selected == BATCH_SIZE);
+        }
+    }
+
+    /**
+     * Builds the excerpt of a content: its first {@value #EXCERPT_LENGTH} characters,
+     * cut on a word boundary when possible and followed by an ellipsis when truncated.
+     */
+    private static String toExcerpt(String content) {
+
+        if (content == null) {
+            return null;
+        }
+
+        String text = content.strip();
+
+        if (text.length() <= EXCERPT_LENGTH) {
+            return text;
+        }
+
+        int end = text.lastIndexOf(' ', EXCERPT_LENGTH);
+
+        if (end <= 0) {
+            end = EXCERPT_LENGTH;
+        }
+
+        return text.substring(0, end).stripTrailing() + "…";
+    }
+
+    /**
+     * Estimates the reading time of a content, in minutes, at least 1.
+     */
+    private static int toReadingTimeMinutes(String content) {
+
+        if (content == null || content.isBlank()) {
+            return 1;
+        }
+
+        int words = content.strip().split("\\s+").length;
+
+        return Math.max(1, (words + WORDS_PER_MINUTE - 1) / WORDS_PER_MINUTE);
+    }
+}
@@ -0,0 +1,16 @@
+package com.openclassrooms.mddapi.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Adds the credentials version of the users, embedded in their access tokens.
+ * Existing users start at version {@code 0}.
+ */
+public class V6__Credentials_version extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Schema.addColumn(context.getConnection(), "users", "version", "BIGINT NOT NULL DEFAULT 0");
+    }
+}
@@ -0,0 +1,43 @@
+package com.openclassrooms.mddapi.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.Connection;
+
+/**
+ * Creates the {@code refresh_sessions} table of the login sessions, with its indexes:
+ * <ul>
+ *     <li>{@code idx_refresh_sessions_token_hash}: unique {@code token_hash}, to find
+ *     the session of a refresh token</li>
+ *     <li>{@code idx_refresh_sessions_user}: {@code user_id}, to revoke the sessions of a user</li>
+ *     <li>{@code idx_refresh_sessions_revoked_at}: {@code revoked_at}, to rebuild the
+ *     in-memory revocation list</li>
+ * </ul>
+ */
+public class V7__Refresh_sessions extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+
+        Connection connection = context.getConnection();
+
+        Schema.execute(connection, """
+                CREATE TABLE IF NOT EXISTS refresh_sessions (
+                    id         VARCHAR(36) NOT NULL,
+                    user_id    BIGINT      NOT NULL,
+                    token_hash VARCHAR(64) NOT NULL,
+                    created_at DATETIME(6) NOT NULL,
+                    expires_at DATETIME(6) NOT NULL,
+                    revoked_at DATETIME(6),
+                    PRIMARY KEY (id)
+                ) ENGINE = InnoDB""");
+
+        Schema.createIndex(connection, "refresh_sessions", "idx_refresh_sessions_token_hash", true,
+                "token_hash");
+        Schema.createIndex(connection, "refresh_sessions", "idx_refresh_sessions_user", false,
+                "user_id");
+        Schema.createIndex(connection, "refresh_sessions", "idx_refresh_sessions_revoked_at", false,
+                "revoked_at");
+    }
+}
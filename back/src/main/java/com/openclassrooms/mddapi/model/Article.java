@@ -2,6 +2,7 @@ package com.openclassrooms.mddapi.model;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -14,6 +15,7 @@ import java.time.LocalDateTime;
  * <ul>
  *     <li>A title</li>
  *     <li>Content (up to 5000 characters)</li>
+ *     <li>An excerpt and an estimated reading time, computed when the article is written</li>
  *     <li>A creation timestamp</li>
  *     <li>An author (User)</li>
  *     <li>An associated topic</li>
@@ -21,11 +23,18 @@ import java.time.LocalDateTime;
  * </p>
  *
  * <p>
- * Each article is persisted in the "articles" table.
+ * Each article is persisted in the "articles" table, indexed newest first by topic
+ * (feed) and by author.
  * </p>
  */
 @Entity
-@Table(name = "articles")
+@Table(
+        name = "articles",
+        indexes = {
+                @Index(name = "idx_articles_topic_created", columnList = "topic_id, created_at DESC, id DESC"),
+                @Index(name = "idx_articles_author_created", columnList = "author_id, created_at DESC, id DESC")
+        }
+)
 @Getter
 @Setter
 public class Article {
@@ -34,7 +43,8 @@ public class Article {
      * Unique identifier of the article.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = PooledIdGenerator.NAME)
+    @GenericGenerator(name = PooledIdGenerator.NAME, strategy = PooledIdGenerator.STRATEGY)
     private Long id;
 
     /**
@@ -49,25 +59,37 @@ public class Article {
     @Column(nullable = false, length = 5000)
     private String content;
 
+    /**
+     * Short excerpt of the content, displayed in list views.
+     */
+    @Column(length = 300)
+    private String excerpt;
+
+    /**
+     * Estimated reading time of the content, in minutes.
+     */
+    @Column(name = "reading_time_minutes")
+    private Integer readingTimeMinutes;
+
     /**
      * Timestamp indicating when the article was created.
      */
-    @Column(nullable = false)
+    @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
     /**
      * Author of the article.
-     * Represents a many-to-one relationship with {@link User}.
+     * Represents a many-to-one relationship with {@link User}, loaded lazily.
      */
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "author_id")
     private User author;
 
     /**
      * Topic under which the article is published.
-     * Represents a many-to-one relationship with {@link Topic}.
+     * Represents a many-to-one relationship with {@link Topic}, loaded lazily.
      */
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "topic_id")
     private Topic topic;
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.openclassrooms.mddapi.model;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -20,21 +21,25 @@ import java.time.LocalDateTime;
  * </p>
  *
  * <p>
- * Each comment is stored in the "comments" table.
+ * Each comment is stored in the "comments" table, indexed newest first by article.
  * </p>
  */
 @Getter
 @Setter
 @Entity
-@Table(name = "comments")
+@Table(
+        name = "comments",
+        indexes = @Index(name = "idx_comments_article_created", columnList = "article_id, created_at DESC, id DESC")
+)
 public class Comment {
 
     /**
      * Unique identifier of the comment.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
-    private Integer id;
+    @GeneratedValue(generator = PooledIdGenerator.NAME)
+    @GenericGenerator(name = PooledIdGenerator.NAME, strategy = PooledIdGenerator.STRATEGY)
+    private Long id;
 
     /**
      * Textual content of the comment.
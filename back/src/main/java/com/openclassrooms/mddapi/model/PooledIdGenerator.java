@@ -0,0 +1,67 @@
+package com.openclassrooms.mddapi.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.PersistentIdentifierGenerator;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Table-backed identifier generator handing out identifiers by blocks.
+ *
+ * <p>
+ * Unlike {@code IDENTITY} columns, identifiers are known before the insert, so
+ * Hibernate can group inserts into JDBC batches. Each entity table has its own row
+ * in the {@code id_generators} table, holding the first identifier of the next block:
+ * <ul>
+ *     <li>A node reserves a block with a single update of that row</li>
+ *     <li>Identifiers of the block are then assigned in memory, without any round trip</li>
+ *     <li>The block size is set by {@code spring.jpa.properties.mdd.id-generator.block-size}</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Blocks are never shared between nodes, so identifiers stay unique, but they are
+ * not strictly ordered by insertion across nodes. Identifiers left unused in a block
+ * when a node stops are lost.
+ * </p>
+ */
+public class PooledIdGenerator extends TableGenerator {
+
+    /**
+     * Name under which the generator is declared on the entities.
+     */
+    public static final String NAME = "pooled";
+
+    /**
+     * Fully qualified name of this class, for {@code @GenericGenerator} declarations.
+     */
+    public static final String STRATEGY = "com.openclassrooms.mddapi.model.PooledIdGenerator";
+
+    private static final String BLOCK_SIZE_SETTING = "mdd.id-generator.block-size";
+    private static final int DEFAULT_BLOCK_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+
+        ConfigurationService configuration = serviceRegistry.getService(ConfigurationService.class);
+
+        int blockSize = configuration.getSetting(
+                BLOCK_SIZE_SETTING,
+                value -> Integer.parseInt(value.toString()),
+                DEFAULT_BLOCK_SIZE
+        );
+
+        params.setProperty(TABLE_PARAM, "id_generators");
+        params.setProperty(SEGMENT_COLUMN_PARAM, "segment_name");
+        params.setProperty(VALUE_COLUMN_PARAM, "next_val");
+        params.setProperty(SEGMENT_VALUE_PARAM, params.getProperty(PersistentIdentifierGenerator.TABLE));
+        params.setProperty(INCREMENT_PARAM, String.valueOf(blockSize));
+        params.setProperty(OPT_PARAM, "pooled-lo");
+
+        super.configure(type, params, serviceRegistry);
+    }
+}
@@ -0,0 +1,74 @@
+package com.openclassrooms.mddapi.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Represents a login session, identified by its refresh token.
+ *
+ * <p>
+ * A session is opened at login or registration. Its refresh token is rotated
+ * each time a new access token is requested; only the SHA-256 hash of the current
+ * refresh token is stored. Revoking a session rejects its refresh token as well as
+ * every access token issued from it, which carry the session identifier.
+ * </p>
+ *
+ * <p>
+ * Sessions are stored in the "refresh_sessions" table.
+ * </p>
+ */
+@Entity
+@Table(
+        name = "refresh_sessions",
+        indexes = {
+                @Index(name = "idx_refresh_sessions_token_hash", columnList = "token_hash", unique = true),
+                @Index(name = "idx_refresh_sessions_user", columnList = "user_id"),
+                @Index(name = "idx_refresh_sessions_revoked_at", columnList = "revoked_at")
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+public class RefreshSession {
+
+    /**
+     * Random identifier of the session, embedded in its access tokens.
+     */
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    /**
+     * Identifier of the user owning the session.
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * SHA-256 hash of the current refresh token, hex-encoded.
+     */
+    @Column(name = "token_hash", nullable = false, length = 64)
+    private String tokenHash;
+
+    /**
+     * Date and time when the session was opened.
+     */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * Date and time after which the current refresh token is rejected.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    /**
+     * Date and time when the session was revoked, or {@code null} while it is active.
+     */
+    @Column(name = "revoked_at")
+    private LocalDateTime revokedAt;
+}
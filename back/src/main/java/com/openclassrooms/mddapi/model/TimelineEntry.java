@@ -0,0 +1,77 @@
+package com.openclassrooms.mddapi.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Represents an article pushed into the precomputed timeline of a subscriber.
+ *
+ * <p>
+ * When fan-out-on-write is enabled, each article published in a topic is
+ * copied, as a lightweight reference, into the timeline of every user
+ * subscribed to that topic. Reading the feed then becomes a range scan on
+ * {@code (user_id, created_at, article_id)} instead of a scan over all the
+ * articles of every subscribed topic.
+ * </p>
+ *
+ * <p>
+ * Timeline entries are stored in the "user_timelines" table. An article appears
+ * at most once in the timeline of a user.
+ * </p>
+ */
+@Entity
+@Table(
+        name = "user_timelines",
+        indexes = {
+                @Index(name = "idx_user_timelines_feed", columnList = "user_id, created_at, article_id"),
+                @Index(name = "idx_user_timelines_user_topic", columnList = "user_id, topic_id"),
+                @Index(name = "uk_user_timelines_user_article", columnList = "user_id, article_id", unique = true)
+        }
+)
+@Getter
+@Setter
+@NoArgsConstructor
+public class TimelineEntry {
+
+    /**
+     * Unique identifier of the timeline entry.
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Identifier of the subscriber owning the timeline.
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * Identifier of the referenced article.
+     */
+    @Column(name = "article_id", nullable = false)
+    private Long articleId;
+
+    /**
+     * Identifier of the topic of the article, used to prune the timeline on unsubscribe.
+     */
+    @Column(name = "topic_id", nullable = false)
+    private Long topicId;
+
+    /**
+     * Creation timestamp of the article, copied to keep the timeline ordered.
+     */
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public TimelineEntry(Long userId, Long articleId, Long topicId, LocalDateTime createdAt) {
+        this.userId = userId;
+        this.articleId = articleId;
+        this.topicId = topicId;
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,61 @@
+package com.openclassrooms.mddapi.model;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Persisted statistics of a topic.
+ *
+ * <p>
+ * Rows are maintained incrementally by {@link com.openclassrooms.mddapi.cache.TopicStatsCounters},
+ * which adds the counts accumulated in memory at regular intervals, and overwritten
+ * by a periodic full recount. They are never read to answer a request.
+ * </p>
+ *
+ * <p>
+ * Statistics are stored in the "topic_stats" table.
+ * </p>
+ */
+@Entity
+@Table(name = "topic_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+public class TopicStats {
+
+    /**
+     * Identifier of the topic.
+     */
+    @Id
+    @Column(name = "topic_id")
+    private Long topicId;
+
+    /**
+     * Number of users subscribed to the topic.
+     */
+    @Column(name = "subscriber_count", nullable = false)
+    private long subscriberCount;
+
+    /**
+     * Number of articles published in the topic.
+     */
+    @Column(name = "article_count", nullable = false)
+    private long articleCount;
+
+    /**
+     * Date and time of the latest article or comment in the topic, if any.
+     */
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt;
+
+    public TopicStats(Long topicId, long subscriberCount, long articleCount, LocalDateTime lastActivityAt) {
+        this.topicId = topicId;
+        this.subscriberCount = subscriberCount;
+        this.articleCount = articleCount;
+        this.lastActivityAt = lastActivityAt;
+    }
+}
@@ -4,10 +4,10 @@ import javax.persistence.Entity;
 import javax.persistence.Table;
 import javax.persistence.Id;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Column;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
 
 /**
  * Represents a user of the application.
@@ -18,6 +18,7 @@ import lombok.Setter;
  *     <li>Has a unique email address used for authentication</li>
  *     <li>Stores an encrypted password</li>
  *     <li>Has an optional username displayed in the application</li>
+ *     <li>Has a credentials version, embedded in the JWT tokens issued to the user</li>
  * </ul>
  * </p>
  *
@@ -35,7 +36,8 @@ public class User {
      * Unique identifier of the user.
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = PooledIdGenerator.NAME)
+    @GenericGenerator(name = PooledIdGenerator.NAME, strategy = PooledIdGenerator.STRATEGY)
     private Long id;
 
     /**
@@ -55,4 +57,11 @@ public class User {
      * Display name of the user.
      */
     private String username;
+
+    /**
+     * Version of the identity claims (username, email, password) of the user.
+     * Incremented each time one of them changes.
+     */
+    @Column(nullable = false)
+    private long version;
 }
\ No newline at end of file
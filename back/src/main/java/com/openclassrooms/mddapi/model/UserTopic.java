@@ -18,10 +18,16 @@ import lombok.Setter;
  *
  * <p>
  * It corresponds to the "users_topics" join table in the database.
+ * A user is subscribed at most once to a topic, which is enforced by a unique index.
  * </p>
  */
 @Entity
-@Table(name = "users_topics")
+@Table(
+        name = "users_topics",
+        indexes = {
+                @Index(name = "uk_users_topics_user_topic", columnList = "user_id, topic_id", unique = true)
+        }
+)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -1,10 +1,15 @@
 package com.openclassrooms.mddapi.payload.request;
 
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
 import lombok.Getter;
 import lombok.Setter;
 
 @Getter
 @Setter
 public class CommentRequest {
+
+    @NotBlank(message = "Comment content is required")
+    @Size(max = 255, message = "Comment content must not exceed 255 characters")
     private String content;
 }
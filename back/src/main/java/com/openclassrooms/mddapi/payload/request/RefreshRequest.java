@@ -0,0 +1,10 @@
+package com.openclassrooms.mddapi.payload.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+public class RefreshRequest {
+    private String refreshToken;
+}
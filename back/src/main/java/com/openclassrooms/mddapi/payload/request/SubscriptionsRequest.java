@@ -0,0 +1,15 @@
+package com.openclassrooms.mddapi.payload.request;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.NotNull;
+import java.util.Set;
+
+@Getter
+@Setter
+public class SubscriptionsRequest {
+
+    @NotNull
+    private Set<Long> topicIds;
+}
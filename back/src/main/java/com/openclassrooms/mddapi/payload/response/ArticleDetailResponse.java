@@ -8,10 +8,16 @@ public class ArticleDetailResponse {
 
     private ArticleDto article;
     private List<CommentResponse> comments;
+    private long commentCount;
+    private String nextCommentsCursor;
 
-    public ArticleDetailResponse(ArticleDto article, List<CommentResponse> comments) {
+    public ArticleDetailResponse(ArticleDto article,
+                                 CommentPageResponse firstComments,
+                                 long commentCount) {
         this.article = article;
-        this.comments = comments;
+        this.comments = firstComments.getComments();
+        this.nextCommentsCursor = firstComments.getNextCursor();
+        this.commentCount = commentCount;
     }
 
     public ArticleDto getArticle() {
@@ -21,4 +27,12 @@ public class ArticleDetailResponse {
     public List<CommentResponse> getComments() {
         return comments;
     }
-}
\ No newline at end of file
+
+    public long getCommentCount() {
+        return commentCount;
+    }
+
+    public String getNextCommentsCursor() {
+        return nextCommentsCursor;
+    }
+}
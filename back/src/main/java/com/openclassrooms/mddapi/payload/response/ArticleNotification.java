@@ -0,0 +1,19 @@
+package com.openclassrooms.mddapi.payload.response;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+public class ArticleNotification {
+
+    private final Long articleId;
+    private final Long topicId;
+    private final LocalDateTime createdAt;
+
+    public ArticleNotification(Long articleId, Long topicId, LocalDateTime createdAt) {
+        this.articleId = articleId;
+        this.topicId = topicId;
+        this.createdAt = createdAt;
+    }
+}
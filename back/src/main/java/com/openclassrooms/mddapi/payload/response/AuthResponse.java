@@ -4,10 +4,12 @@ import com.openclassrooms.mddapi.dto.UserDto;
 public class AuthResponse {
 
     private String token;
+    private String refreshToken;
     private UserDto user;
 
-    public AuthResponse(String token, UserDto user) {
+    public AuthResponse(String token, String refreshToken, UserDto user) {
         this.token = token;
+        this.refreshToken = refreshToken;
         this.user = user;
     }
 
@@ -15,6 +17,10 @@ public class AuthResponse {
         return token;
     }
 
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
     public UserDto getUser() {
         return user;
     }
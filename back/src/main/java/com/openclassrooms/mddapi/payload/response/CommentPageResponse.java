@@ -0,0 +1,22 @@
+package com.openclassrooms.mddapi.payload.response;
+
+import java.util.List;
+
+public class CommentPageResponse {
+
+    private List<CommentResponse> comments;
+    private String nextCursor;
+
+    public CommentPageResponse(List<CommentResponse> comments, String nextCursor) {
+        this.comments = comments;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<CommentResponse> getComments() {
+        return comments;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
@@ -1,13 +1,17 @@
 package com.openclassrooms.mddapi.payload.response;
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
 import java.time.LocalDateTime;
 
 @Setter
 @Getter
+@NoArgsConstructor
+@AllArgsConstructor
 public class CommentResponse {
-    private Integer id;
+    private Long id;
     private String content;
     private LocalDateTime createdAt;
     private String authorName;
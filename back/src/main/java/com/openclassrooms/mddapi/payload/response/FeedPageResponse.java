@@ -0,0 +1,24 @@
+package com.openclassrooms.mddapi.payload.response;
+
+import com.openclassrooms.mddapi.dto.ArticleSummaryDto;
+
+import java.util.List;
+
+public class FeedPageResponse {
+
+    private List<ArticleSummaryDto> articles;
+    private String nextCursor;
+
+    public FeedPageResponse(List<ArticleSummaryDto> articles, String nextCursor) {
+        this.articles = articles;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<ArticleSummaryDto> getArticles() {
+        return articles;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+}
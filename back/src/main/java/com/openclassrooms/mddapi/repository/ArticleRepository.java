@@ -1,15 +1,126 @@
 package com.openclassrooms.mddapi.repository;
 
+import com.openclassrooms.mddapi.dto.ArticleActivityDto;
+import com.openclassrooms.mddapi.dto.ArticleDto;
+import com.openclassrooms.mddapi.dto.ArticleRefDto;
+import com.openclassrooms.mddapi.dto.ArticleSummaryDto;
 import com.openclassrooms.mddapi.model.Article;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+/**
+ * Repository for {@link Article} entities.
+ *
+ * <p>
+ * Read queries project directly into {@link ArticleDto} or {@link ArticleSummaryDto}
+ * with a constructor expression joining the author and the topic, so that each of
+ * them runs as exactly one SQL statement whatever the number of distinct authors
+ * and topics.
+ * </p>
+ *
+ * <p>
+ * List queries select the summary columns only: the full content is never read
+ * from the database outside of {@link #findDtoById(Long)} and the topic export.
+ * </p>
+ *
+ * <p>
+ * Streaming queries read rows through a database cursor, {@value #STREAM_FETCH_SIZE}
+ * rows at a time, and must be consumed within a transaction.
+ * </p>
+ */
 public interface ArticleRepository extends JpaRepository<Article, Long> {
 
-    List<Article> findByTopic_Id(Long topicId);
+    String DTO_SELECT = "SELECT new com.openclassrooms.mddapi.dto.ArticleDto("
+            + "a.id, a.title, a.content, u.username, t.name, a.createdAt) "
+            + "FROM Article a JOIN a.author u JOIN a.topic t ";
+
+    String SUMMARY_SELECT = "SELECT new com.openclassrooms.mddapi.dto.ArticleSummaryDto("
+            + "a.id, a.title, a.excerpt, a.readingTimeMinutes, u.username, t.name, a.createdAt) "
+            + "FROM Article a JOIN a.author u JOIN a.topic t ";
+
+    String STREAM_FETCH_SIZE = "500";
+
+    @Query(DTO_SELECT + "WHERE a.id = :id")
+    Optional<ArticleDto> findDtoById(@Param("id") Long id);
+
+    @Query("SELECT new com.openclassrooms.mddapi.dto.ArticleRefDto(a.id, a.topic.id, a.createdAt) "
+            + "FROM Article a WHERE a.id = :id")
+    Optional<ArticleRefDto> findRefById(@Param("id") Long id);
+
+    @Query(SUMMARY_SELECT + "WHERE a.id IN :ids")
+    List<ArticleSummaryDto> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SUMMARY_SELECT
+            + "WHERE t.id IN :topicIds "
+            + "ORDER BY a.createdAt DESC, a.id DESC")
+    List<ArticleSummaryDto> findFeedFirstPage(@Param("topicIds") Collection<Long> topicIds,
+                                       Pageable pageable);
+
+    @Query(SUMMARY_SELECT
+            + "WHERE t.id IN :topicIds "
+            + "AND (a.createdAt < :createdAt "
+            + "OR (a.createdAt = :createdAt AND a.id < :id)) "
+            + "ORDER BY a.createdAt DESC, a.id DESC")
+    List<ArticleSummaryDto> findFeedPageAfter(@Param("topicIds") Collection<Long> topicIds,
+                                       @Param("createdAt") LocalDateTime createdAt,
+                                       @Param("id") Long id,
+                                       Pageable pageable);
+
+    @Query("SELECT new com.openclassrooms.mddapi.dto.ArticleActivityDto("
+            + "a.id, a.createdAt, COUNT(c.id)) "
+            + "FROM Article a LEFT JOIN Comment c ON c.article.id = a.id "
+            + "WHERE a.topic.id = :topicId AND a.createdAt >= :since "
+            + "GROUP BY a.id, a.createdAt")
+    List<ArticleActivityDto> findActivitySince(@Param("topicId") Long topicId,
+                                               @Param("since") LocalDateTime since);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(SUMMARY_SELECT
+            + "WHERE t.id IN :topicIds "
+            + "ORDER BY a.createdAt DESC, a.id DESC")
+    Stream<ArticleSummaryDto> streamFeed(@Param("topicIds") Collection<Long> topicIds);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(DTO_SELECT
+            + "WHERE t.id = :topicId "
+            + "ORDER BY a.createdAt DESC, a.id DESC")
+    Stream<ArticleDto> streamByTopicId(@Param("topicId") Long topicId);
+
+    /**
+     * Loads article summaries by identifier in a single query, preserving the order of the identifiers.
+     *
+     * @param ids the identifiers of the articles, in the expected order
+     * @return the existing articles in the order of {@code ids}
+     */
+    default List<ArticleSummaryDto> findSummariesByIdInOrder(List<Long> ids) {
+
+        if (ids.isEmpty()) {
+            return List.of();
+        }
 
-    List<Article> findByAuthor_Id(Long authorId);
+        Map<Long, ArticleSummaryDto> articlesById = findSummariesByIdIn(ids)
+                .stream()
+                .collect(Collectors.toMap(ArticleSummaryDto::getId, Function.identity()));
 
-    List<Article> findByTopic_IdInOrderByCreatedAtDesc(List<Long> topicIds);
+        return ids.stream()
+                .map(articlesById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
 }
@@ -0,0 +1,41 @@
+package com.openclassrooms.mddapi.repository;
+
+import com.openclassrooms.mddapi.model.Comment;
+
+import java.util.List;
+
+/**
+ * Write-behind statements on the comments, implemented with plain JDBC.
+ *
+ * <p>
+ * Comments written behind the request get their identifier before being queued,
+ * from the same block allocator Hibernate uses, then are inserted with a single
+ * JDBC batch per flush.
+ * </p>
+ */
+public interface CommentBatchRepository {
+
+    /**
+     * Reserves the identifier of a new comment.
+     *
+     * <p>
+     * Identifiers come from the in-memory block of the comment generator: the database
+     * is only reached when the block is exhausted.
+     * </p>
+     *
+     * @return a comment identifier not used by any other comment
+     */
+    Long nextId();
+
+    /**
+     * Inserts comments whose identifier, author, article and creation date are already set,
+     * in a single JDBC batch.
+     *
+     * <p>
+     * Only the identifiers of the author and of the article are read: they may be references.
+     * </p>
+     *
+     * @param comments the comments to insert
+     */
+    void insertAll(List<Comment> comments);
+}
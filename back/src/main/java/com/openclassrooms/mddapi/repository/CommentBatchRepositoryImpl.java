@@ -0,0 +1,64 @@
+package com.openclassrooms.mddapi.repository;
+
+import com.openclassrooms.mddapi.model.Comment;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * JDBC implementation of {@link CommentBatchRepository}, picked up by Spring Data
+ * as a fragment of {@link CommentRepository}.
+ */
+public class CommentBatchRepositoryImpl implements CommentBatchRepository {
+
+    private static final String INSERT =
+            "INSERT INTO comments (id, content, created_at, article_id, author_id) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    private volatile IdentifierGenerator idGenerator;
+
+    public CommentBatchRepositoryImpl(JdbcTemplate jdbcTemplate, EntityManagerFactory entityManagerFactory) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public Long nextId() {
+
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+
+        if (idGenerator == null) {
+            idGenerator = sessionFactory.getMetamodel()
+                    .entityPersister(Comment.class)
+                    .getIdentifierGenerator();
+        }
+
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return (Long) idGenerator.generate((SharedSessionContractImplementor) session, null);
+        }
+    }
+
+    @Override
+    public void insertAll(List<Comment> comments) {
+
+        List<Object[]> rows = comments.stream()
+                .map(comment -> new Object[]{
+                        comment.getId(),
+                        comment.getContent(),
+                        Timestamp.valueOf(comment.getCreatedAt()),
+                        comment.getArticle().getId(),
+                        comment.getAuthor().getId()
+                })
+                .toList();
+
+        jdbcTemplate.batchUpdate(INSERT, rows);
+    }
+}
@@ -1,12 +1,39 @@
 package com.openclassrooms.mddapi.repository;
 
 import com.openclassrooms.mddapi.model.Comment;
+import com.openclassrooms.mddapi.payload.response.CommentResponse;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface CommentRepository extends JpaRepository<Comment, Integer> {
-    List<Comment> findByArticleIdOrderByCreatedAtDesc(Long articleId);
-}
\ No newline at end of file
+public interface CommentRepository extends JpaRepository<Comment, Long>, CommentBatchRepository {
+
+    String RESPONSE_SELECT = "SELECT new com.openclassrooms.mddapi.payload.response.CommentResponse("
+            + "c.id, c.content, c.createdAt, u.username) "
+            + "FROM Comment c JOIN c.author u ";
+
+    @Query("SELECT COUNT(c) FROM Comment c WHERE c.article.id = :articleId")
+    long countByArticleId(@Param("articleId") Long articleId);
+
+    @Query(RESPONSE_SELECT
+            + "WHERE c.article.id = :articleId "
+            + "ORDER BY c.createdAt DESC, c.id DESC")
+    List<CommentResponse> findFirstPage(@Param("articleId") Long articleId,
+                                        Pageable pageable);
+
+    @Query(RESPONSE_SELECT
+            + "WHERE c.article.id = :articleId "
+            + "AND (c.createdAt < :createdAt "
+            + "OR (c.createdAt = :createdAt AND c.id < :id)) "
+            + "ORDER BY c.createdAt DESC, c.id DESC")
+    List<CommentResponse> findPageAfter(@Param("articleId") Long articleId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+}
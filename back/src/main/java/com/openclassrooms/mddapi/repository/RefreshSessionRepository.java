@@ -0,0 +1,38 @@
+package com.openclassrooms.mddapi.repository;
+
+import com.openclassrooms.mddapi.model.RefreshSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface RefreshSessionRepository extends JpaRepository<RefreshSession, String> {
+
+    Optional<RefreshSession> findByTokenHash(String tokenHash);
+
+    @Query("SELECT s.id FROM RefreshSession s "
+            + "WHERE s.userId = :userId AND s.revokedAt IS NULL")
+    List<String> findActiveIdsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT s.id FROM RefreshSession s WHERE s.revokedAt > :since")
+    List<String> findIdsRevokedSince(@Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("UPDATE RefreshSession s "
+            + "SET s.tokenHash = :newTokenHash, s.expiresAt = :expiresAt "
+            + "WHERE s.id = :id AND s.tokenHash = :oldTokenHash AND s.revokedAt IS NULL")
+    int rotate(@Param("id") String id,
+               @Param("oldTokenHash") String oldTokenHash,
+               @Param("newTokenHash") String newTokenHash,
+               @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE RefreshSession s SET s.revokedAt = :revokedAt "
+            + "WHERE s.id IN :ids AND s.revokedAt IS NULL")
+    int revokeAll(@Param("ids") List<String> ids,
+                  @Param("revokedAt") LocalDateTime revokedAt);
+}
@@ -0,0 +1,24 @@
+package com.openclassrooms.mddapi.repository;
+
+import com.openclassrooms.mddapi.model.TimelineEntry;
+
+import java.util.List;
+
+/**
+ * Batched statements on the timeline entries, implemented with plain JDBC.
+ *
+ * <p>
+ * Timeline entries use an identity key, which prevents Hibernate from batching
+ * their inserts: the fan-out writes them here with a single JDBC batch instead.
+ * </p>
+ */
+public interface TimelineEntryBatchRepository {
+
+    /**
+     * Inserts several timeline entries in a single JDBC batch, skipping the entries
+     * whose article is already in the timeline of their user.
+     *
+     * @param entries the entries to insert
+     */
+    void insertAllIfAbsent(List<TimelineEntry> entries);
+}
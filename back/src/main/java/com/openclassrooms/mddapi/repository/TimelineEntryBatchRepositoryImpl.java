@@ -0,0 +1,37 @@
+package com.openclassrooms.mddapi.repository;
+
+import com.openclassrooms.mddapi.model.TimelineEntry;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+/**
+ * JDBC implementation of {@link TimelineEntryBatchRepository}, picked up by Spring Data
+ * as a fragment of {@link TimelineEntryRepository}.
+ */
+public class TimelineEntryBatchRepositoryImpl implements TimelineEntryBatchRepository {
+
+    private static final String INSERT_IF_ABSENT =
+            "INSERT IGNORE INTO user_timelines (user_id, article_id, topic_id, created_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TimelineEntryBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAllIfAbsent(List<TimelineEntry> entries) {
+
+        List<Object[]> rows = entries.stream()
+                .map(entry -> new Object[]{
+                        entry.getUserId(),
+                        entry.getArticleId(),
+                        entry.getTopicId(),
+                        entry.getCreatedAt()
+                })
+                .toList();
+
+        jdbcTemplate.batchUpdate(INSERT_IF_ABSENT, rows);
+    }
+}
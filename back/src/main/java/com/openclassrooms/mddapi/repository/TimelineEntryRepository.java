@@ -0,0 +1,55 @@
+package com.openclassrooms.mddapi.repository;
+
+import com.openclassrooms.mddapi.model.TimelineEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntry, Long>,
+        TimelineEntryBatchRepository {
+
+    @Query("SELECT t FROM TimelineEntry t "
+            + "WHERE t.userId = :userId "
+            + "ORDER BY t.createdAt DESC, t.articleId DESC")
+    List<TimelineEntry> findFirstPage(@Param("userId") Long userId,
+                                      Pageable pageable);
+
+    @Query("SELECT t FROM TimelineEntry t "
+            + "WHERE t.userId = :userId "
+            + "AND (t.createdAt < :createdAt "
+            + "OR (t.createdAt = :createdAt AND t.articleId < :articleId)) "
+            + "ORDER BY t.createdAt DESC, t.articleId DESC")
+    List<TimelineEntry> findPageAfter(@Param("userId") Long userId,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("articleId") Long articleId,
+                                      Pageable pageable);
+
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_timelines (user_id, article_id, topic_id, created_at) "
+            + "SELECT :userId, a.id, a.topic_id, a.created_at FROM articles a "
+            + "WHERE a.topic_id = :topicId "
+            + "AND NOT EXISTS (SELECT 1 FROM user_timelines t "
+            + "WHERE t.user_id = :userId AND t.topic_id = a.topic_id AND t.article_id = a.id) "
+            + "ORDER BY a.created_at DESC, a.id DESC "
+            + "LIMIT :limit",
+            nativeQuery = true)
+    int backfill(@Param("userId") Long userId,
+                 @Param("topicId") Long topicId,
+                 @Param("limit") int limit);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.userId = :userId AND t.topicId = :topicId")
+    int deleteByUserIdAndTopicId(@Param("userId") Long userId,
+                                 @Param("topicId") Long topicId);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.userId = :userId AND t.topicId IN :topicIds")
+    int deleteByUserIdAndTopicIdIn(@Param("userId") Long userId,
+                                   @Param("topicIds") Collection<Long> topicIds);
+}
@@ -1,8 +1,10 @@
 package com.openclassrooms.mddapi.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import com.openclassrooms.mddapi.model.Topic;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface TopicRepository extends JpaRepository<Topic, Long> {
@@ -10,4 +12,7 @@ public interface TopicRepository extends JpaRepository<Topic, Long> {
     Optional<Topic> findByName(String name);
 
     boolean existsByName(String name);
+
+    @Query("SELECT t.id FROM Topic t ORDER BY t.id")
+    List<Long> findAllIds();
 }
@@ -0,0 +1,38 @@
+package com.openclassrooms.mddapi.repository;
+
+import com.openclassrooms.mddapi.dto.TopicStatsDto;
+import com.openclassrooms.mddapi.model.TopicStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface TopicStatsRepository extends JpaRepository<TopicStats, Long> {
+
+    @Modifying
+    @Query("UPDATE TopicStats s "
+            + "SET s.subscriberCount = s.subscriberCount + :subscribers, "
+            + "s.articleCount = s.articleCount + :articles "
+            + "WHERE s.topicId = :topicId")
+    int addCounts(@Param("topicId") Long topicId,
+                  @Param("subscribers") long subscribers,
+                  @Param("articles") long articles);
+
+    @Modifying
+    @Query("UPDATE TopicStats s SET s.lastActivityAt = :lastActivityAt "
+            + "WHERE s.topicId = :topicId "
+            + "AND (s.lastActivityAt IS NULL OR s.lastActivityAt < :lastActivityAt)")
+    int advanceLastActivity(@Param("topicId") Long topicId,
+                            @Param("lastActivityAt") LocalDateTime lastActivityAt);
+
+    @Query("SELECT new com.openclassrooms.mddapi.dto.TopicStatsDto(t.id, "
+            + "(SELECT COUNT(ut.id) FROM UserTopic ut WHERE ut.topic.id = t.id), "
+            + "(SELECT COUNT(a.id) FROM Article a WHERE a.topic.id = t.id), "
+            + "(SELECT MAX(la.createdAt) FROM Article la WHERE la.topic.id = t.id), "
+            + "(SELECT MAX(c.createdAt) FROM Comment c JOIN c.article ca WHERE ca.topic.id = t.id)) "
+            + "FROM Topic t")
+    List<TopicStatsDto> countAll();
+}
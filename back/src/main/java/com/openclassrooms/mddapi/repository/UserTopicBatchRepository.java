@@ -0,0 +1,40 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Batched and locking statements on the subscriptions, implemented with plain JDBC.
+ *
+ * <p>
+ * Subscriptions use an identity key, which prevents Hibernate from batching
+ * their inserts: they are written here with a single JDBC batch instead.
+ * </p>
+ */
+public interface UserTopicBatchRepository {
+
+    /**
+     * Subscribes a user to several topics in a single JDBC batch, skipping
+     * the subscriptions that already exist.
+     *
+     * <p>
+     * The driver may rewrite the batch into a single multi-row statement and report
+     * no per-row count ({@code rewriteBatchedStatements}): the subscriptions actually
+     * inserted must be read back by the caller.
+     * </p>
+     *
+     * @param userId   the identifier of the user
+     * @param topicIds the identifiers of the topics
+     */
+    void insertAllIfAbsent(Long userId, Collection<Long> topicIds);
+
+    /**
+     * Reads which of several subscriptions of a user exist, and locks them until the end
+     * of the transaction so that they are not deleted concurrently.
+     *
+     * @param userId   the identifier of the user
+     * @param topicIds the identifiers of the topics
+     * @return the identifiers of the topics the user is subscribed to, among the given ones
+     */
+    List<Long> lockTopicIds(Long userId, Collection<Long> topicIds);
+}
@@ -0,0 +1,54 @@
+package com.openclassrooms.mddapi.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JDBC implementation of {@link UserTopicBatchRepository}, picked up by Spring Data
+ * as a fragment of {@link UserTopicRepository}.
+ */
+public class UserTopicBatchRepositoryImpl implements UserTopicBatchRepository {
+
+    private static final String INSERT_IF_ABSENT =
+            "INSERT IGNORE INTO users_topics (user_id, topic_id) VALUES (?, ?)";
+
+    private static final String LOCK_TOPIC_IDS =
+            "SELECT topic_id FROM users_topics WHERE user_id = ? AND topic_id IN (%s) FOR UPDATE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserTopicBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertAllIfAbsent(Long userId, Collection<Long> topicIds) {
+
+        List<Object[]> rows = topicIds.stream()
+                .map(topicId -> new Object[]{userId, topicId})
+                .toList();
+
+        jdbcTemplate.batchUpdate(INSERT_IF_ABSENT, rows);
+    }
+
+    @Override
+    public List<Long> lockTopicIds(Long userId, Collection<Long> topicIds) {
+
+        if (topicIds.isEmpty()) {
+            return List.of();
+        }
+
+        String placeholders = String.join(", ", Collections.nCopies(topicIds.size(), "?"));
+
+        List<Object> parameters = new ArrayList<>(topicIds.size() + 1);
+        parameters.add(userId);
+        parameters.addAll(topicIds);
+
+        return jdbcTemplate.queryForList(
+                String.format(LOCK_TOPIC_IDS, placeholders), Long.class, parameters.toArray());
+    }
+}
@@ -1,15 +1,54 @@
 package com.openclassrooms.mddapi.repository;
 
 import com.openclassrooms.mddapi.model.UserTopic;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 
-public interface UserTopicRepository extends JpaRepository<UserTopic, Long> {
+public interface UserTopicRepository extends JpaRepository<UserTopic, Long>, UserTopicBatchRepository {
 
     boolean existsByUserIdAndTopicId(Long userId, Long topicId);
 
-    void deleteByUserIdAndTopicId(Long userId, Long topicId);
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO users_topics (user_id, topic_id) "
+            + "SELECT :userId, t.id FROM topics t WHERE t.id = :topicId",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId,
+                       @Param("topicId") Long topicId);
+
+    @Modifying
+    @Query("DELETE FROM UserTopic ut WHERE ut.user.id = :userId AND ut.topic.id = :topicId")
+    int deleteByUserIdAndTopicId(@Param("userId") Long userId,
+                                 @Param("topicId") Long topicId);
+
+    @Modifying
+    @Query("DELETE FROM UserTopic ut WHERE ut.user.id = :userId AND ut.topic.id IN :topicIds")
+    int deleteByUserIdAndTopicIdIn(@Param("userId") Long userId,
+                                   @Param("topicIds") Collection<Long> topicIds);
 
     List<UserTopic> findByUserId(Long userId);
+
+    @Query("SELECT ut.topic.id FROM UserTopic ut WHERE ut.user.id = :userId")
+    List<Long> findTopicIdsByUserId(@Param("userId") Long userId);
+
+    long countByTopicId(Long topicId);
+
+    @Query("SELECT ut.user.id FROM UserTopic ut "
+            + "WHERE ut.topic.id = :topicId AND ut.user.id > :afterUserId "
+            + "ORDER BY ut.user.id")
+    List<Long> findSubscriberIdsAfter(@Param("topicId") Long topicId,
+                                      @Param("afterUserId") Long afterUserId,
+                                      Pageable pageable);
+
+    @Query("SELECT ut.topic.id FROM UserTopic ut "
+            + "WHERE ut.topic.id IN :topicIds "
+            + "GROUP BY ut.topic.id "
+            + "HAVING COUNT(ut.id) >= :threshold")
+    List<Long> findTopicIdsWithMinSubscribers(@Param("topicIds") Collection<Long> topicIds,
+                                              @Param("threshold") long threshold);
 }
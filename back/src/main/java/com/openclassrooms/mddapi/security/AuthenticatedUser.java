@@ -0,0 +1,17 @@
+package com.openclassrooms.mddapi.security;
+
+/**
+ * Immutable principal of an authenticated request, built from the claims of its JWT token.
+ *
+ * <p>
+ * Unlike the {@link com.openclassrooms.mddapi.model.User} entity, it never carries
+ * the password hash and does not require any database access.
+ * </p>
+ *
+ * @param id       the identifier of the user (token subject)
+ * @param username the display name of the user when the token was issued
+ * @param email    the email address of the user when the token was issued
+ * @param version  the credentials version of the user when the token was issued
+ */
+public record AuthenticatedUser(Long id, String username, String email, long version) {
+}
@@ -3,7 +3,9 @@ package com.openclassrooms.mddapi.security;
 import javax.servlet.*;
 import javax.servlet.http.*;
 
-import com.openclassrooms.mddapi.repository.UserRepository;
+import com.openclassrooms.mddapi.cache.PrincipalCache;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -20,8 +22,8 @@ import java.util.Collections;
  * <ul>
  *     <li>Intercepts incoming HTTP requests</li>
  *     <li>Extracts the JWT token from the Authorization header</li>
- *     <li>Validates the token</li>
- *     <li>Loads the associated user</li>
+ *     <li>Verifies the token once and reads its claims</li>
+ *     <li>Resolves the {@link AuthenticatedUser} principal of the token</li>
  *     <li>Sets the authentication in the Spring Security context</li>
  * </ul>
  * </p>
@@ -37,23 +39,39 @@ import java.util.Collections;
  * If the token is invalid or absent, the filter allows the request
  * to continue without authentication.
  * </p>
+ *
+ * <p>
+ * The principal source is selected with {@code mdd.auth.principal-source}:
+ * <ul>
+ *     <li>{@code claims} (default): the principal is built from the token claims,
+ *     without any database access</li>
+ *     <li>{@code cache}: the principal is read from the {@link PrincipalCache}, so that
+ *     profile changes are visible before the token expires and deleted users are rejected</li>
+ * </ul>
+ * </p>
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final String CACHE_SOURCE = "cache";
+
     private final JwtService jwtService;
-    private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final boolean useCache;
 
     /**
      * Constructs a {@link JwtAuthenticationFilter}.
      *
-     * @param jwtService     service used to validate and parse JWT tokens
-     * @param userRepository repository used to retrieve users from the database
+     * @param jwtService      service used to validate and parse JWT tokens
+     * @param principalCache  cache of principals loaded from the database
+     * @param principalSource where principals come from: {@code claims} or {@code cache}
      */
     public JwtAuthenticationFilter(JwtService jwtService,
-                                   UserRepository userRepository) {
+                                   PrincipalCache principalCache,
+                                   @Value("${mdd.auth.principal-source:claims}") String principalSource) {
         this.jwtService = jwtService;
-        this.userRepository = userRepository;
+        this.principalCache = principalCache;
+        this.useCache = CACHE_SOURCE.equalsIgnoreCase(principalSource);
     }
 
     /**
@@ -64,17 +82,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
      * <ol>
      *     <li>Extracts the Authorization header</li>
      *     <li>Checks for a Bearer token</li>
-     *     <li>Validates the JWT token</li>
-     *     <li>Extracts the user ID from the token</li>
-     *     <li>Loads the user from the database</li>
+     *     <li>Verifies the JWT token and reads its claims in a single call</li>
+     *     <li>Resolves the principal from the claims or from the principal cache</li>
      *     <li>Creates a {@link UsernamePasswordAuthenticationToken}</li>
      *     <li>Stores it in the {@link SecurityContextHolder}</li>
      * </ol>
      * </p>
      *
      * <p>
-     * If the token is missing, invalid, or the user does not exist,
+     * If the token is missing or invalid, or the user no longer exists (cache source only),
      * the request proceeds without authentication.
+     * A token stays valid until it expires, even if the user has changed
+     * their username or email since it was issued.
      * </p>
      *
      * @param request     the incoming HTTP request
@@ -98,24 +117,37 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         String token = authHeader.substring(7);
 
-        if (!jwtService.isTokenValid(token)) {
+        JwtClaims claims;
+
+        try {
+            claims = jwtService.verify(token);
+        } catch (JwtException e) {
             filterChain.doFilter(request, response);
             return;
         }
 
-        Long userId = jwtService.extractUserId(token);
+        AuthenticatedUser user = claims.user();
+
+        if (useCache) {
+            user = principalCache.get(user.id());
+        }
+
+        if (user == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
 
-        userRepository.findById(userId).ifPresent(user -> {
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(
+                        user,
+                        null,
+                        Collections.emptyList()
+                );
 
-            UsernamePasswordAuthenticationToken authentication =
-                    new UsernamePasswordAuthenticationToken(
-                            user,
-                            null,
-                            Collections.emptyList()
-                    );
+        // The session of the token, so that a password change can keep it open.
+        authentication.setDetails(claims.sessionId());
 
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-        });
+        SecurityContextHolder.getContext().setAuthentication(authentication);
 
         filterChain.doFilter(request, response);
     }
@@ -0,0 +1,13 @@
+package com.openclassrooms.mddapi.security;
+
+import java.time.Instant;
+
+/**
+ * Claims of a JWT token whose signature and expiration have been verified.
+ *
+ * @param user      the principal described by the token
+ * @param sessionId the identifier of the session that issued the token, if any
+ * @param expiresAt the instant after which the token is no longer accepted
+ */
+public record JwtClaims(AuthenticatedUser user, String sessionId, Instant expiresAt) {
+}
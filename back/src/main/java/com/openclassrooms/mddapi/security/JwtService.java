@@ -1,10 +1,15 @@
 package com.openclassrooms.mddapi.security;
 
+import com.openclassrooms.mddapi.cache.RevocationList;
+import com.openclassrooms.mddapi.model.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.time.Duration;
 import java.util.Date;
 
 /**
@@ -13,14 +18,24 @@ import java.util.Date;
  * <p>
  * This service provides methods to:
  * <ul>
- *     <li>Generate JWT tokens for authenticated users</li>
- *     <li>Extract user identifiers from tokens</li>
- *     <li>Validate token integrity and expiration</li>
+ *     <li>Generate short-lived access tokens for authenticated sessions</li>
+ *     <li>Verify a token and return its claims in a single call</li>
+ *     <li>Build the {@link AuthenticatedUser} principal from the claims,
+ *     so that authenticating a request needs no database access</li>
  * </ul>
  * </p>
  *
  * <p>
- * Tokens are signed using the HMAC-SHA256 algorithm (HS256).
+ * Tokens are signed using the HMAC-SHA256 algorithm (HS256). The signing key
+ * and the parser are built once: both are immutable and thread-safe, so verifying
+ * a token takes no lock. Verified tokens are not cached: looking a token up would
+ * require hashing it, which costs about as much as checking its signature.
+ * </p>
+ *
+ * <p>
+ * Access tokens live {@code mdd.jwt.access-ttl-minutes} and carry the identifier of the
+ * session that issued them. A token whose session has been revoked is rejected, using the
+ * in-memory {@link RevocationList}: the check never queries the database.
  * </p>
  *
  * <p>
@@ -40,93 +55,143 @@ public class JwtService {
     private static final String SECRET =
             "thisIsASecretKeyForJwtThatMustBeVeryLongAndSecure123456";
 
+
+    private static final String USERNAME_CLAIM = "username";
+    private static final String EMAIL_CLAIM = "email";
+    private static final String VERSION_CLAIM = "ver";
+    private static final String SESSION_CLAIM = "sid";
+
     /**
-     * Token expiration time in milliseconds (24 hours).
+     * Key used to sign and verify tokens, derived once from {@link #SECRET}.
      */
-    private static final long EXPIRATION = 1000 * 60 * 60 * 24;
+    private final Key signKey = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
 
     /**
-     * Generates the signing key used for token signature verification.
+     * Reusable parser verifying the signature and expiration of tokens.
+     */
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(signKey)
+            .build();
+
+    private final RevocationList revocationList;
+    private final long accessTtlMillis;
+
+    /**
+     * Constructs a {@link JwtService}.
      *
-     * @return the cryptographic {@link Key} used for signing JWT tokens
+     * @param revocationList   in-memory set of revoked sessions
+     * @param accessTtlMinutes lifetime of an access token
      */
-    private Key getSignKey() {
-        return Keys.hmacShaKeyFor(SECRET.getBytes());
+    public JwtService(
+            RevocationList revocationList,
+            @Value("${mdd.jwt.access-ttl-minutes:15}") long accessTtlMinutes
+    ) {
+        this.revocationList = revocationList;
+        this.accessTtlMillis = Duration.ofMinutes(accessTtlMinutes).toMillis();
     }
 
     /**
-     * Generates a JWT token for a given user.
+     * Generates a JWT access token for a given user and session.
      *
      * <p>
      * The generated token:
      * <ul>
      *     <li>Uses the user ID as the subject</li>
+     *     <li>Contains the username, email and credentials version of the user</li>
+     *     <li>Contains the identifier of the session</li>
      *     <li>Contains the issue date</li>
      *     <li>Contains an expiration date</li>
      *     <li>Is signed using HS256</li>
      * </ul>
      * </p>
      *
-     * @param userId the unique identifier of the authenticated user
+     * @param user      the authenticated user
+     * @param sessionId the identifier of the session issuing the token
      * @return a signed JWT token as a {@link String}
      */
-    public String generateToken(Long userId) {
+    public String generateToken(User user, String sessionId) {
         return Jwts.builder()
-                .setSubject(String.valueOf(userId))
+                .setSubject(String.valueOf(user.getId()))
+                .claim(USERNAME_CLAIM, user.getUsername())
+                .claim(EMAIL_CLAIM, user.getEmail())
+                .claim(VERSION_CLAIM, user.getVersion())
+                .claim(SESSION_CLAIM, sessionId)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
+                .setExpiration(new Date(System.currentTimeMillis() + accessTtlMillis))
+                .signWith(signKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     /**
-     * Extracts the user identifier from a JWT token.
+     * Verifies a JWT token and returns its claims.
      *
      * <p>
-     * The token is parsed and validated before extracting the subject.
+     * The token is considered valid if:
+     * <ul>
+     *     <li>It is correctly signed</li>
+     *     <li>It has not expired</li>
+     *     <li>It is properly formatted and carries a numeric subject</li>
+     *     <li>Its session has not been revoked</li>
+     * </ul>
      * </p>
      *
-     * @param token the JWT token
-     * @return the user identifier contained in the token
-     * @throws JwtException if the token is invalid or cannot be parsed
-     * @throws IllegalArgumentException if the token is null or malformed
+     * @param token the JWT token to verify
+     * @return the verified {@link JwtClaims}
+     * @throws JwtException if the token is invalid, expired, revoked or cannot be parsed
      */
-    public Long extractUserId(String token) {
+    public JwtClaims verify(String token) {
 
-        String subject = Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        if (token == null || token.isBlank()) {
+            throw new MalformedJwtException("Missing token");
+        }
 
-        return Long.parseLong(subject);
+        JwtClaims claims = parse(token);
+
+        if (claims.sessionId() != null && revocationList.isRevoked(claims.sessionId())) {
+            throw new JwtException("Revoked token");
+        }
+
+        return claims;
     }
 
     /**
-     * Validates the integrity and expiration of a JWT token.
-     *
-     * <p>
-     * The token is considered valid if:
-     * <ul>
-     *     <li>It is correctly signed</li>
-     *     <li>It has not expired</li>
-     *     <li>It is properly formatted</li>
-     * </ul>
-     * </p>
-     *
-     * @param token the JWT token to validate
-     * @return {@code true} if the token is valid, {@code false} otherwise
+     * Parses a token, checking its signature and expiration.
      */
-    public boolean isTokenValid(String token) {
+    private JwtClaims parse(String token) {
+
+        Claims body;
+
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSignKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            body = parser.parseClaimsJws(token).getBody();
+        } catch (IllegalArgumentException e) {
+            throw new MalformedJwtException("Invalid token", e);
         }
+
+        if (body.getSubject() == null || body.getExpiration() == null) {
+            throw new MalformedJwtException("Missing subject or expiration");
+        }
+
+        Long userId;
+
+        try {
+            userId = Long.parseLong(body.getSubject());
+        } catch (NumberFormatException e) {
+            throw new MalformedJwtException("Invalid subject", e);
+        }
+
+        Number version = body.get(VERSION_CLAIM, Number.class);
+
+        AuthenticatedUser user = new AuthenticatedUser(
+                userId,
+                body.get(USERNAME_CLAIM, String.class),
+                body.get(EMAIL_CLAIM, String.class),
+                version == null ? 0L : version.longValue()
+        );
+
+        return new JwtClaims(
+                user,
+                body.get(SESSION_CLAIM, String.class),
+                body.getExpiration().toInstant()
+        );
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,70 @@
+package com.openclassrooms.mddapi.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Arrays;
+
+/**
+ * Measures the cost of BCrypt on the current machine and picks a work factor.
+ *
+ * <p>
+ * Each increment of the BCrypt work factor doubles the hashing time. The calibration
+ * measures the median time of a few hashes at the minimum work factor, then raises the
+ * work factor while the extrapolated time stays within the latency budget.
+ * </p>
+ */
+public final class PasswordHashCalibration {
+
+    private static final String SAMPLE_PASSWORD = "calibration-password";
+
+    private static final int SAMPLES = 3;
+
+    private PasswordHashCalibration() {
+    }
+
+    /**
+     * Picks the highest BCrypt work factor whose hashing time fits in a budget.
+     *
+     * @param targetMillis latency budget of a single hash, in milliseconds
+     * @param minStrength  lowest acceptable work factor, returned even if it exceeds the budget
+     * @param maxStrength  highest work factor that may be returned
+     * @return the calibrated work factor, between {@code minStrength} and {@code maxStrength}
+     */
+    public static int calibrateBcryptStrength(long targetMillis, int minStrength, int maxStrength) {
+
+        double millis = measureBcrypt(minStrength, SAMPLES);
+        int strength = minStrength;
+
+        while (strength < maxStrength && millis * 2 <= targetMillis) {
+            strength++;
+            millis *= 2;
+        }
+
+        return strength;
+    }
+
+    /**
+     * Measures the median time of a BCrypt hash, after one warm-up hash.
+     *
+     * @param strength the BCrypt work factor
+     * @param samples  the number of measured hashes
+     * @return the median hashing time, in milliseconds
+     */
+    public static double measureBcrypt(int strength, int samples) {
+
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        encoder.encode(SAMPLE_PASSWORD);
+
+        double[] millis = new double[samples];
+
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            millis[i] = (System.nanoTime() - start) / 1_000_000.0;
+        }
+
+        Arrays.sort(millis);
+
+        return millis[samples / 2];
+    }
+}
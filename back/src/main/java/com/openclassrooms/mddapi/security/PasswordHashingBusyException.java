@@ -0,0 +1,35 @@
+package com.openclassrooms.mddapi.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when the password hashing executor is saturated.
+ *
+ * <p>
+ * Answered with HTTP 503 and a {@code Retry-After} header, so that clients
+ * back off instead of piling more work onto the queue.
+ * </p>
+ */
+public class PasswordHashingBusyException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructs a {@link PasswordHashingBusyException}.
+     *
+     * @param retryAfterSeconds delay suggested to the client before retrying
+     */
+    public PasswordHashingBusyException(long retryAfterSeconds) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Authentication is temporarily overloaded");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getResponseHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+}
@@ -0,0 +1,167 @@
+package com.openclassrooms.mddapi.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service running password hashing and verification on the password executor.
+ *
+ * <p>
+ * Hashing a password costs tens of milliseconds of CPU. Running it on the request
+ * threads would let a burst of logins or registrations starve every other endpoint,
+ * so this service:
+ * <ul>
+ *     <li>Submits each hash or verification to the bounded {@code passwordExecutor}</li>
+ *     <li>Rejects the request immediately with HTTP 503 and {@code Retry-After}
+ *     when the executor queue is full</li>
+ *     <li>Publishes the queue depth ({@code mdd.auth.hashing.queue}), the time spent
+ *     waiting in the queue ({@code mdd.auth.hashing.wait}), the hashing latency
+ *     ({@code mdd.auth.hashing.duration}) and the number of rejections
+ *     ({@code mdd.auth.hashing.rejected})</li>
+ * </ul>
+ * </p>
+ */
+@Service
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor passwordExecutor;
+    private final long retryAfterSeconds;
+
+    private final Timer waitTimer;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    /**
+     * Constructs a {@link PasswordHashingService}.
+     *
+     * @param passwordEncoder   encoder performing the actual hashing
+     * @param passwordExecutor  bounded executor running the hashing tasks
+     * @param meterRegistry     registry publishing the hashing metrics
+     * @param retryAfterSeconds delay suggested to rejected clients
+     */
+    public PasswordHashingService(
+            PasswordEncoder passwordEncoder,
+            @Qualifier("passwordExecutor") ThreadPoolTaskExecutor passwordExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${mdd.auth.hashing.retry-after-seconds:2}") long retryAfterSeconds
+    ) {
+        this.passwordEncoder = passwordEncoder;
+        this.passwordExecutor = passwordExecutor;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        Gauge.builder("mdd.auth.hashing.queue", passwordExecutor,
+                        executor -> executor.getThreadPoolExecutor().getQueue().size())
+                .description("Password hashing tasks waiting for a thread")
+                .register(meterRegistry);
+
+        this.waitTimer = Timer.builder("mdd.auth.hashing.wait")
+                .description("Time spent by password hashing tasks in the queue")
+                .register(meterRegistry);
+        this.encodeTimer = Timer.builder("mdd.auth.hashing.duration")
+                .tag("operation", "encode")
+                .register(meterRegistry);
+        this.matchesTimer = Timer.builder("mdd.auth.hashing.duration")
+                .tag("operation", "matches")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("mdd.auth.hashing.rejected")
+                .description("Password hashing tasks rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Hashes a raw password.
+     *
+     * @param rawPassword the password to hash
+     * @return the encoded password
+     * @throws PasswordHashingBusyException if the hashing executor is saturated
+     */
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Verifies a raw password against an encoded one.
+     *
+     * @param rawPassword     the password to verify
+     * @param encodedPassword the stored encoded password
+     * @return {@code true} if the passwords match
+     * @throws PasswordHashingBusyException if the hashing executor is saturated
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Indicates whether an encoded password should be hashed again with the current
+     * algorithm and parameters. This check does not hash anything.
+     *
+     * @param encodedPassword the stored encoded password
+     * @return {@code true} if the password should be rehashed
+     */
+    public boolean needsUpgrade(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Returns a legacy hash, stored without its algorithm prefix, with only the
+     * {@code {bcrypt}} prefix added, when the hash itself is still up to date.
+     * This check does not hash anything.
+     *
+     * @param encodedPassword the stored encoded password
+     * @return the prefixed hash, or {@code null} if the password must be hashed again
+     */
+    public String prefixLegacyHash(String encodedPassword) {
+
+        if (encodedPassword == null || encodedPassword.startsWith("{")) {
+            return null;
+        }
+
+        String prefixed = "{" + SecurityConfig.BCRYPT_ID + "}" + encodedPassword;
+
+        return passwordEncoder.upgradeEncoding(prefixed) ? null : prefixed;
+    }
+
+    private <T> T run(Timer timer, Callable<T> task) {
+
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+
+        try {
+            future = passwordExecutor.submit(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return timer.recordCallable(task);
+            });
+        } catch (TaskRejectedException e) {
+            rejected.increment();
+            throw new PasswordHashingBusyException(retryAfterSeconds);
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingBusyException(retryAfterSeconds);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.openclassrooms.mddapi.security;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when a client exceeds a rate limiting rule.
+ *
+ * <p>
+ * Answered with HTTP 429 and a {@code Retry-After} header giving the number
+ * of seconds after which the next request will be accepted.
+ * </p>
+ */
+public class RateLimitExceededException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructs a {@link RateLimitExceededException}.
+     *
+     * @param retryAfterSeconds delay after which the client may retry
+     */
+    public RateLimitExceededException(long retryAfterSeconds) {
+        super(HttpStatus.TOO_MANY_REQUESTS, "Too many requests");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getResponseHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+}
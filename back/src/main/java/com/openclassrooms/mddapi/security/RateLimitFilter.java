@@ -0,0 +1,147 @@
+package com.openclassrooms.mddapi.security;
+
+import com.openclassrooms.mddapi.config.RateLimitProperties;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rate limiting filter applying the routes of {@link RateLimitProperties}.
+ *
+ * <p>
+ * Runs after the JWT filter, so that the authenticated principal can be used as a key.
+ * For each rule matching the method and path of the request, one token is consumed from
+ * the bucket of every configured key:
+ * <ul>
+ *     <li>{@code ip}: the address of the client. Behind a reverse proxy, it is read from the
+ *     {@code X-Forwarded-For} header set by the proxy ({@code server.forward-headers-strategy}),
+ *     which is only trusted from the addresses of {@code server.tomcat.remoteip.internal-proxies}</li>
+ *     <li>{@code principal}: the identifier of the authenticated user, if any</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * When a bucket is empty, the request is answered with HTTP 429 and a {@code Retry-After}
+ * header. Requests matching no rule only pay for the route lookup.
+ * </p>
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String IP_KEY = "ip";
+    private static final String PRINCIPAL_KEY = "principal";
+
+    private final RateLimiter rateLimiter;
+    private final List<Route> routes = new ArrayList<>();
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    /**
+     * Constructs a {@link RateLimitFilter}.
+     *
+     * @param rateLimiter the token buckets
+     * @param properties  the rate limiting rules
+     */
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties) {
+
+        this.rateLimiter = rateLimiter;
+
+        if (properties.isEnabled()) {
+            properties.getRules().forEach((name, rule) -> {
+                if (rule.getPath() != null) {
+                    routes.add(new Route(name, rule));
+                }
+            });
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        if (!routes.isEmpty()) {
+
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+
+            for (Route route : routes) {
+
+                if (!route.matches(request.getMethod(), path)) {
+                    continue;
+                }
+
+                long retryAfterSeconds = acquire(route, request);
+
+                if (retryAfterSeconds > 0) {
+                    response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+                    response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+                    return;
+                }
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private long acquire(Route route, HttpServletRequest request) {
+
+        long retryAfterSeconds = 0;
+
+        if (route.byIp) {
+            retryAfterSeconds = rateLimiter.tryAcquire(route.name, request.getRemoteAddr());
+        }
+
+        if (retryAfterSeconds == 0 && route.byPrincipal) {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+            if (authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user) {
+                retryAfterSeconds = rateLimiter.tryAcquire(route.name, "user:" + user.id());
+            }
+        }
+
+        return retryAfterSeconds;
+    }
+
+    /**
+     * A rule applied to the requests matching a method and a path pattern.
+     */
+    private final class Route {
+
+        private final String name;
+        private final String method;
+        private final String path;
+        private final boolean pattern;
+        private final boolean byIp;
+        private final boolean byPrincipal;
+
+        private Route(String name, RateLimitProperties.Rule rule) {
+            this.name = name;
+            this.method = rule.getMethod();
+            this.path = rule.getPath();
+            this.pattern = pathMatcher.isPattern(path);
+            this.byIp = rule.getKeys().contains(IP_KEY);
+            this.byPrincipal = rule.getKeys().contains(PRINCIPAL_KEY);
+        }
+
+        private boolean matches(String requestMethod, String requestPath) {
+
+            if (method != null && !method.equalsIgnoreCase(requestMethod)) {
+                return false;
+            }
+
+            return pattern ? pathMatcher.match(path, requestPath) : path.equals(requestPath);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.openclassrooms.mddapi.security;
+
+import com.openclassrooms.mddapi.config.RateLimitProperties;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process rate limiter made of lock-free token buckets.
+ *
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding the theoretical arrival time of the
+ * next request (the GCRA formulation of a token bucket): a request is accepted when that
+ * time is less than {@code (capacity - 1)} refill intervals ahead of now, and pushes it
+ * one interval further with a compare-and-set. Checking a request therefore costs one map
+ * lookup and one CAS, without locks or allocation once the bucket exists.
+ * </p>
+ *
+ * <p>
+ * Buckets are spread over independent stripes, chosen by key hash. A bucket whose arrival
+ * time is in the past is fully refilled and can be dropped without changing any decision:
+ * such idle buckets are evicted periodically. Each stripe also holds at most its share of
+ * {@code mdd.rate-limit.max-buckets}: a new bucket beyond it evicts the oldest bucket of
+ * the stripe, in constant time, whether idle or not. Under a flood of new keys, a client
+ * whose bucket is evicted thus starts again with a full bucket. Buckets are local to the node.
+ * </p>
+ */
+@Component
+public class RateLimiter {
+
+    private static final int STRIPES = 16;
+
+    private final boolean enabled;
+    private final int maxBucketsPerStripe;
+    private final Map<String, Limit> limits = new HashMap<>();
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * Origin of the time scale, so that bucket times are always positive.
+     */
+    private final long origin = System.nanoTime();
+
+    /**
+     * Constructs a {@link RateLimiter}.
+     *
+     * @param properties the rate limiting rules
+     */
+    public RateLimiter(RateLimitProperties properties) {
+
+        this.enabled = properties.isEnabled();
+        this.maxBucketsPerStripe = Math.max(1, properties.getMaxBuckets() / STRIPES);
+
+        properties.getRules().forEach((name, rule) -> limits.put(name, new Limit(rule)));
+
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Consumes one token from the bucket of a client for a rule.
+     *
+     * @param rule the name of the rule
+     * @param key  the client key (IP address, user identifier, email...)
+     * @return {@code 0} if the request is accepted, otherwise the number of
+     *         seconds after which the client may retry
+     */
+    public long tryAcquire(String rule, String key) {
+
+        Limit limit = limits.get(rule);
+
+        if (!enabled || limit == null || key == null) {
+            return 0;
+        }
+
+        String bucketKey = rule + '|' + key;
+        Stripe stripe = stripes[(bucketKey.hashCode() & 0x7fffffff) % STRIPES];
+        AtomicLong bucket = stripe.bucket(bucketKey);
+
+        long now = System.nanoTime() - origin;
+
+        while (true) {
+
+            long arrival = bucket.get();
+            long start = Math.max(arrival, now);
+
+            if (start - now > limit.toleranceNanos) {
+                long waitNanos = start - now - limit.toleranceNanos;
+                return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            }
+
+            if (bucket.compareAndSet(arrival, start + limit.intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Consumes one token, throwing when the bucket is empty.
+     *
+     * @param rule the name of the rule
+     * @param key  the client key
+     * @throws RateLimitExceededException with HTTP 429 if the client exceeded the rule
+     */
+    public void acquire(String rule, String key) {
+
+        long retryAfterSeconds = tryAcquire(rule, key);
+
+        if (retryAfterSeconds > 0) {
+            throw new RateLimitExceededException(retryAfterSeconds);
+        }
+    }
+
+    /**
+     * Drops the buckets that are fully refilled.
+     */
+    @Scheduled(fixedDelayString = "${mdd.rate-limit.eviction-ms:60000}")
+    public void evictIdleBuckets() {
+
+        long now = System.nanoTime() - origin;
+
+        for (Stripe stripe : stripes) {
+            stripe.evictIdle(now);
+        }
+    }
+
+    /**
+     * Returns the number of buckets currently held in memory.
+     *
+     * @return the number of buckets
+     */
+    public int size() {
+
+        int size = 0;
+
+        for (Stripe stripe : stripes) {
+            size += stripe.size.get();
+        }
+
+        return size;
+    }
+
+    /**
+     * Refill interval and burst tolerance of a rule.
+     */
+    private static final class Limit {
+
+        private final long intervalNanos;
+        private final long toleranceNanos;
+
+        private Limit(RateLimitProperties.Rule rule) {
+            this.intervalNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, rule.getPerMinute());
+            this.toleranceNanos = intervalNanos * (Math.max(1, rule.getCapacity()) - 1);
+        }
+    }
+
+    /**
+     * Arrival time of the next request of one client, with the key it is stored under.
+     */
+    private static final class Bucket extends AtomicLong {
+
+        private final String key;
+
+        private Bucket(String key) {
+            this.key = key;
+        }
+    }
+
+    /**
+     * One shard of the buckets, with its own size counter and its buckets in creation order.
+     */
+    private final class Stripe {
+
+        private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+        private final ConcurrentLinkedQueue<Bucket> order = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        private AtomicLong bucket(String key) {
+
+            Bucket bucket = buckets.get(key);
+
+            if (bucket != null) {
+                return bucket;
+            }
+
+            Bucket created = new Bucket(key);
+            Bucket existing = buckets.putIfAbsent(key, created);
+
+            if (existing != null) {
+                return existing;
+            }
+
+            order.add(created);
+
+            if (size.incrementAndGet() > maxBucketsPerStripe) {
+                evictOldest();
+            }
+
+            return created;
+        }
+
+        /**
+         * Drops the oldest bucket still held, skipping the entries already evicted.
+         */
+        private void evictOldest() {
+
+            Bucket oldest;
+
+            while ((oldest = order.poll()) != null) {
+                if (buckets.remove(oldest.key, oldest)) {
+                    size.decrementAndGet();
+                    return;
+                }
+            }
+        }
+
+        private void evictIdle(long now) {
+
+            Iterator<Bucket> iterator = order.iterator();
+
+            while (iterator.hasNext()) {
+
+                Bucket bucket = iterator.next();
+
+                if (buckets.get(bucket.key) != bucket) {
+                    iterator.remove();
+                } else if (bucket.get() <= now && buckets.remove(bucket.key, bucket)) {
+                    size.decrementAndGet();
+                    iterator.remove();
+                }
+            }
+        }
+    }
+}
@@ -1,18 +1,27 @@
 package com.openclassrooms.mddapi.security;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.openclassrooms.mddapi.config.RateLimitProperties;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Central Spring Security configuration class.
@@ -22,6 +31,7 @@ import java.util.List;
  * <ul>
  *     <li>Disables CSRF protection (stateless REST API)</li>
  *     <li>Configures JWT-based authentication</li>
+ *     <li>Applies rate limiting once the request is authenticated</li>
  *     <li>Defines public and secured endpoints</li>
  *     <li>Sets session management to STATELESS</li>
  *     <li>Configures CORS policy</li>
@@ -34,17 +44,26 @@ import java.util.List;
  * </p>
  */
 @Configuration
+@EnableConfigurationProperties(RateLimitProperties.class)
 public class SecurityConfig {
 
+    private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
+
+    static final String BCRYPT_ID = "bcrypt";
+
     private final JwtAuthenticationFilter jwtFilter;
+    private final RateLimitFilter rateLimitFilter;
 
     /**
      * Constructs the security configuration.
      *
-     * @param jwtFilter custom JWT authentication filter
+     * @param jwtFilter       custom JWT authentication filter
+     * @param rateLimitFilter rate limiting filter
      */
-    public SecurityConfig(JwtAuthenticationFilter jwtFilter) {
+    public SecurityConfig(JwtAuthenticationFilter jwtFilter,
+                          RateLimitFilter rateLimitFilter) {
         this.jwtFilter = jwtFilter;
+        this.rateLimitFilter = rateLimitFilter;
     }
 
     /**
@@ -54,8 +73,11 @@ public class SecurityConfig {
      * Security rules:
      * <ul>
      *     <li>Endpoints under /auth/** are publicly accessible</li>
-     *     <li>All other endpoints require authentication</li>
+     *     <li>All other endpoints require authentication: unauthenticated requests, including
+     *     those carrying an expired access token, are answered with HTTP 401 so that the
+     *     client refreshes its token</li>
      *     <li>JWT filter is executed before the default authentication filter</li>
+     *     <li>Rate limiting filter is executed right after the JWT filter</li>
      * </ul>
      * </p>
      *
@@ -78,6 +100,9 @@ public class SecurityConfig {
                 .sessionManagement()
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 .and()
+                .exceptionHandling()
+                .authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED))
+                .and()
                 .authorizeRequests()
                 .antMatchers("/auth/**").permitAll()
                 .anyRequest().authenticated()
@@ -85,6 +110,10 @@ public class SecurityConfig {
                 .addFilterBefore(
                         jwtFilter,
                         UsernamePasswordAuthenticationFilter.class
+                )
+                .addFilterAfter(
+                        rateLimitFilter,
+                        JwtAuthenticationFilter.class
                 );
 
         return http.build();
@@ -127,13 +156,42 @@ public class SecurityConfig {
      * Provides a password encoder bean.
      *
      * <p>
-     * Uses BCrypt hashing algorithm for secure password storage.
+     * Uses BCrypt hashing algorithm for secure password storage. The work factor is
+     * {@code mdd.auth.bcrypt.strength} when set, otherwise it is calibrated at startup
+     * so that one hash takes at most {@code mdd.auth.bcrypt.target-ms} on this machine.
+     * </p>
+     *
+     * <p>
+     * New hashes are prefixed with the identifier of their algorithm ({@code {bcrypt}}),
+     * so that other algorithms can be adopted later. Hashes stored without a prefix are
+     * verified as BCrypt and reported as needing an upgrade.
      * </p>
      *
+     * @param strength     fixed BCrypt work factor, or {@code 0} to calibrate it
+     * @param targetMillis latency budget of a single hash used by the calibration
+     * @param minStrength  lowest work factor accepted by the calibration
+     * @param maxStrength  highest work factor accepted by the calibration
      * @return a {@link PasswordEncoder} implementation
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${mdd.auth.bcrypt.strength:0}") int strength,
+            @Value("${mdd.auth.bcrypt.target-ms:250}") long targetMillis,
+            @Value("${mdd.auth.bcrypt.min-strength:10}") int minStrength,
+            @Value("${mdd.auth.bcrypt.max-strength:16}") int maxStrength
+    ) {
+
+        if (strength <= 0) {
+            strength = PasswordHashCalibration.calibrateBcryptStrength(targetMillis, minStrength, maxStrength);
+            log.info("Calibrated BCrypt strength {} for a {} ms budget", strength, targetMillis);
+        }
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+
+        DelegatingPasswordEncoder encoder =
+                new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+
+        return encoder;
     }
 }
\ No newline at end of file
@@ -1,22 +1,38 @@
 package com.openclassrooms.mddapi.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.openclassrooms.mddapi.cache.RecentArticleIndex;
+import com.openclassrooms.mddapi.cache.SubscriptionIndex;
+import com.openclassrooms.mddapi.cache.TopArticleIndex;
+import com.openclassrooms.mddapi.cache.VersionCounters;
 import com.openclassrooms.mddapi.dto.ArticleDto;
+import com.openclassrooms.mddapi.dto.ArticleSummaryDto;
+import com.openclassrooms.mddapi.dto.FeedCursor;
+import com.openclassrooms.mddapi.event.ArticleCreatedEvent;
 import com.openclassrooms.mddapi.mapper.ArticleMapper;
 import com.openclassrooms.mddapi.model.Article;
 import com.openclassrooms.mddapi.model.Topic;
 import com.openclassrooms.mddapi.model.User;
-import com.openclassrooms.mddapi.model.UserTopic;
 import com.openclassrooms.mddapi.payload.request.ArticleRequest;
 import com.openclassrooms.mddapi.payload.response.ArticleDetailResponse;
-import com.openclassrooms.mddapi.payload.response.CommentResponse;
+import com.openclassrooms.mddapi.payload.response.CommentPageResponse;
+import com.openclassrooms.mddapi.payload.response.FeedPageResponse;
 import com.openclassrooms.mddapi.repository.ArticleRepository;
 import com.openclassrooms.mddapi.repository.TopicRepository;
 import com.openclassrooms.mddapi.repository.UserRepository;
-import com.openclassrooms.mddapi.repository.UserTopicRepository;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Service responsible for managing article-related business logic.
@@ -26,7 +42,9 @@ import java.util.List;
  * <ul>
  *     <li>Article creation</li>
  *     <li>Article retrieval with associated comments</li>
- *     <li>User feed generation based on topic subscriptions</li>
+ *     <li>Paginated user feed generation based on topic subscriptions</li>
+ *     <li>Ranked feed generation combining engagement and recency</li>
+ *     <li>Streaming of the full feed and of topic exports as newline-delimited JSON</li>
  * </ul>
  * </p>
  *
@@ -38,11 +56,32 @@ import java.util.List;
 @Transactional
 public class ArticleService {
 
+    /**
+     * Value of the {@code sort} parameter selecting the ranked feed.
+     */
+    public static final String SORT_TOP = "top";
+
+    /**
+     * Number of articles returned per feed page when the client does not ask for a size.
+     */
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * Upper bound applied to the requested feed page size.
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ArticleRepository articleRepository;
     private final TopicRepository topicRepository;
     private final CommentService commentService;
     private final UserRepository userRepository;
-    private final UserTopicRepository userTopicRepository;
+    private final SubscriptionIndex subscriptionIndex;
+    private final TimelineService timelineService;
+    private final RecentArticleIndex recentArticleIndex;
+    private final TopArticleIndex topArticleIndex;
+    private final VersionCounters versionCounters;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectMapper objectMapper;
 
     /**
      * Constructs an {@link ArticleService} with required repositories and services.
@@ -51,20 +90,38 @@ public class ArticleService {
      * @param topicRepository     repository for topic persistence
      * @param userRepository      repository for user persistence
      * @param commentService      service responsible for comment retrieval
-     * @param userTopicRepository repository for managing user-topic subscriptions
+     * @param subscriptionIndex   in-memory index of the topics each user is subscribed to
+     * @param timelineService     service serving the feed from precomputed timelines
+     * @param recentArticleIndex  in-memory index serving the first page of the feed
+     * @param topArticleIndex     in-memory ranking serving the ranked feed
+     * @param versionCounters     version counters used to build entity tags
+     * @param eventPublisher      publisher notifying listeners of new articles
+     * @param objectMapper        JSON mapper used to stream articles
      */
     public ArticleService(
             ArticleRepository articleRepository,
             TopicRepository topicRepository,
             UserRepository userRepository,
             CommentService commentService,
-            UserTopicRepository userTopicRepository
+            SubscriptionIndex subscriptionIndex,
+            TimelineService timelineService,
+            RecentArticleIndex recentArticleIndex,
+            TopArticleIndex topArticleIndex,
+            VersionCounters versionCounters,
+            ApplicationEventPublisher eventPublisher,
+            ObjectMapper objectMapper
     ) {
         this.articleRepository = articleRepository;
         this.topicRepository = topicRepository;
         this.commentService = commentService;
         this.userRepository = userRepository;
-        this.userTopicRepository = userTopicRepository;
+        this.subscriptionIndex = subscriptionIndex;
+        this.timelineService = timelineService;
+        this.recentArticleIndex = recentArticleIndex;
+        this.topArticleIndex = topArticleIndex;
+        this.versionCounters = versionCounters;
+        this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -77,6 +134,8 @@ public class ArticleService {
      *     <li>Validates the existence of the topic</li>
      *     <li>Maps the request to an {@link Article} entity</li>
      *     <li>Persists the article</li>
+     *     <li>Publishes an {@link ArticleCreatedEvent}: the feed views record the article
+     *     once committed, then bump the version of the topic</li>
      *     <li>Returns a DTO representation</li>
      * </ol>
      * </p>
@@ -98,75 +157,318 @@ public class ArticleService {
 
         articleRepository.save(article);
 
+        eventPublisher.publishEvent(new ArticleCreatedEvent(
+                article.getId(),
+                topic.getId(),
+                user.getId(),
+                article.getCreatedAt()
+        ));
+
         return ArticleMapper.toDto(article);
     }
 
     /**
-     * Retrieves an article by its identifier along with its associated comments.
+     * Retrieves an article by its identifier along with the first page of its comments.
      *
      * <p>
      * The method:
      * <ol>
-     *     <li>Fetches the article from the database</li>
-     *     <li>Maps it to a DTO</li>
-     *     <li>Retrieves all related comments</li>
+     *     <li>Fetches the article, its author name and topic name as a DTO in a single query</li>
+     *     <li>Retrieves the first page of comments, author names included, in a single query</li>
+     *     <li>Counts the comments of the article</li>
      *     <li>Aggregates them into an {@link ArticleDetailResponse}</li>
      * </ol>
      * </p>
      *
      * @param id the unique identifier of the article
-     * @return an {@link ArticleDetailResponse} containing article details and comments
+     * @return an {@link ArticleDetailResponse} containing article details, the first page
+     *         of comments, the cursor of the next page and the total number of comments
      * @throws RuntimeException if the article does not exist
      */
     public ArticleDetailResponse getArticleById(Long id) {
 
-        Article article = articleRepository.findById(id)
+        ArticleDto articleDto = articleRepository.findDtoById(id)
                 .orElseThrow(() -> new RuntimeException("Article not found"));
 
-        ArticleDto articleDto = ArticleMapper.toDto(article);
+        CommentPageResponse comments =
+                commentService.getCommentPage(id, null, null);
+
+        return new ArticleDetailResponse(
+                articleDto,
+                comments,
+                commentService.countComments(id)
+        );
+    }
+
+    /**
+     * Computes the entity tag of an article detail.
+     *
+     * <p>
+     * The tag only depends on in-memory version counters: it changes when a comment
+     * is posted on the article or when a user changes their displayed name.
+     * </p>
+     *
+     * @param id the unique identifier of the article
+     * @return the strong entity tag of the article detail
+     */
+    public String getArticleETag(Long id) {
+        return versionCounters.etag(
+                id,
+                versionCounters.articleVersion(id),
+                versionCounters.profilesVersion()
+        );
+    }
+
+    /**
+     * Computes the entity tag of a feed page.
+     *
+     * <p>
+     * The tag depends on the requested page, on the user's subscriptions and on the
+     * version of each subscribed topic, or of its ranking for the ranked feed.
+     * Subscriptions are read from the in-memory {@link SubscriptionIndex}: articles
+     * are never read to answer a conditional request.
+     * </p>
+     *
+     * @param userId the identifier of the user
+     * @param sort   the requested ordering, possibly {@code null}
+     * @param cursor the opaque cursor of the requested page, possibly {@code null}
+     * @param size   the requested page size, possibly {@code null}
+     * @return the strong entity tag of the feed page
+     */
+    public String getFeedETag(Long userId, String sort, String cursor, Integer size) {
+
+        boolean top = SORT_TOP.equals(sort);
+
+        List<Long> topicIds = subscriptionIndex.getTopicIdList(userId);
+
+        long[] parts = new long[6 + topicIds.size() * 2];
+        int i = 0;
+
+        parts[i++] = userId;
+        parts[i++] = top ? 1 : 0;
+        parts[i++] = cursor == null ? 0 : cursor.hashCode();
+        parts[i++] = resolvePageSize(size);
+        parts[i++] = versionCounters.subscriptionsVersion(userId);
+        parts[i++] = versionCounters.profilesVersion();
+
+        for (Long topicId : topicIds) {
+            parts[i++] = topicId;
+            parts[i++] = top
+                    ? topArticleIndex.version(topicId)
+                    : versionCounters.topicVersion(topicId);
+        }
+
+        return versionCounters.etag(parts);
+    }
+
+    /**
+     * Generates one page of the feed for a specific user based on their topic subscriptions.
+     *
+     * <p>
+     * The method:
+     * <ol>
+     *     <li>Retrieves the identifiers of the topics the user is subscribed to</li>
+     *     <li>Seeks the articles of those topics located strictly after the cursor,
+     *     ordered by creation date then identifier (descending). The first page is merged
+     *     from the in-memory {@link RecentArticleIndex} when it can answer; other pages come
+     *     from the precomputed timeline when fan-out-on-write is enabled, or from the
+     *     articles table</li>
+     *     <li>Projects them directly into summaries (excerpt instead of full content),
+     *     author and topic names included</li>
+     *     <li>Builds the cursor of the next page when more articles remain</li>
+     * </ol>
+     * </p>
+     *
+     * <p>
+     * One extra article is fetched beyond the page size to detect whether
+     * a next page exists without issuing a count query.
+     * </p>
+     *
+     * @param userId the identifier of the user
+     * @param cursor the opaque cursor returned with the previous page,
+     *               or {@code null} to fetch the first page
+     * @param size   the requested page size, or {@code null} for the default size.
+     *               Capped at {@value #MAX_PAGE_SIZE}.
+     * @return a {@link FeedPageResponse} containing the page of articles and the
+     *         next cursor. Returns an empty page if the user has no subscriptions.
+     * @throws RuntimeException if the cursor is malformed
+     */
+    public FeedPageResponse getFeed(Long userId, String cursor, Integer size) {
+
+        int pageSize = resolvePageSize(size);
+
+        List<Long> topicIds =
+                subscriptionIndex.getTopicIdList(userId);
+
+        if (topicIds.isEmpty()) {
+            return new FeedPageResponse(List.of(), null);
+        }
+
+        FeedCursor after = (cursor == null || cursor.isBlank())
+                ? null
+                : FeedCursor.decode(cursor);
+
+        List<ArticleSummaryDto> articles;
+
+        long[] recentIds = after == null
+                ? recentArticleIndex.findMostRecent(topicIds, pageSize + 1)
+                : null;
+
+        if (recentIds != null) {
+            articles = articleRepository.findSummariesByIdInOrder(
+                    Arrays.stream(recentIds).boxed().toList()
+            );
+        } else if (timelineService.isEnabled()) {
+            articles = timelineService.findFeedArticles(userId, topicIds, after, pageSize + 1);
+        } else if (after == null) {
+            articles = articleRepository.findFeedFirstPage(
+                    topicIds,
+                    PageRequest.of(0, pageSize + 1)
+            );
+        } else {
+            articles = articleRepository.findFeedPageAfter(
+                    topicIds,
+                    after.getCreatedAt(),
+                    after.getId(),
+                    PageRequest.of(0, pageSize + 1)
+            );
+        }
 
-        List<CommentResponse> comments =
-                commentService.getCommentsByArticle(id);
+        boolean hasNext = articles.size() > pageSize;
 
-        return new ArticleDetailResponse(articleDto, comments);
+        List<ArticleSummaryDto> page = hasNext ? articles.subList(0, pageSize) : articles;
+
+        String nextCursor = null;
+
+        if (hasNext) {
+            ArticleSummaryDto last = page.get(page.size() - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return new FeedPageResponse(page, nextCursor);
     }
 
     /**
-     * Generates the feed for a specific user based on their topic subscriptions.
+     * Generates the ranked feed of a user.
      *
      * <p>
      * The method:
      * <ol>
-     *     <li>Retrieves all topics the user is subscribed to</li>
-     *     <li>Extracts the topic identifiers</li>
-     *     <li>Fetches articles belonging to those topics</li>
-     *     <li>Sorts them by creation date (descending)</li>
-     *     <li>Maps them to DTOs</li>
+     *     <li>Retrieves the identifiers of the topics the user is subscribed to</li>
+     *     <li>Merges the in-memory rankings of those topics, where each article is scored
+     *     by its comment count with an exponential decay on its age</li>
+     *     <li>Loads the summaries of the best articles in a single query</li>
      * </ol>
      * </p>
      *
+     * <p>
+     * Scores change as comments are posted, so the ranked feed has a single page
+     * and no next cursor.
+     * </p>
+     *
      * @param userId the identifier of the user
-     * @return a list of {@link ArticleDto} representing the user's feed.
-     *         Returns an empty list if the user has no subscriptions.
+     * @param size   the requested number of articles, or {@code null} for the default size.
+     *               Capped at {@value #MAX_PAGE_SIZE}.
+     * @return a {@link FeedPageResponse} containing the best articles, best first
      */
-    public List<ArticleDto> getFeed(Long userId) {
+    public FeedPageResponse getTopFeed(Long userId, Integer size) {
 
-        List<UserTopic> subscriptions =
-                userTopicRepository.findByUserId(userId);
+        List<Long> topicIds =
+                subscriptionIndex.getTopicIdList(userId);
+
+        if (topicIds.isEmpty()) {
+            return new FeedPageResponse(List.of(), null);
+        }
+
+        long[] topIds = topArticleIndex.findTop(topicIds, resolvePageSize(size));
+
+        List<ArticleSummaryDto> articles = articleRepository.findSummariesByIdInOrder(
+                Arrays.stream(topIds).boxed().toList()
+        );
+
+        return new FeedPageResponse(articles, null);
+    }
+
+    /**
+     * Writes the whole feed of a user as newline-delimited JSON.
+     *
+     * <p>
+     * Summaries are read through a database cursor and written one by one
+     * with Jackson's streaming generator, so memory use does not depend on
+     * the number of articles.
+     * </p>
+     *
+     * @param userId the identifier of the user
+     * @param out    the stream receiving one JSON summary per line
+     * @throws IOException if writing to the stream fails
+     */
+    public void streamFeed(Long userId, OutputStream out) throws IOException {
 
-        List<Long> topicIds = subscriptions.stream()
-                .map(userTopic -> userTopic.getTopic().getId())
-                .toList();
+        List<Long> topicIds =
+                subscriptionIndex.getTopicIdList(userId);
 
         if (topicIds.isEmpty()) {
-            return List.of();
+            return;
+        }
+
+        try (Stream<ArticleSummaryDto> articles = articleRepository.streamFeed(topicIds)) {
+            writeNdjson(articles.iterator(), out);
         }
+    }
+
+    /**
+     * Writes every article of a topic, full content included, as newline-delimited JSON.
+     *
+     * @param topicId the identifier of the exported topic
+     * @param out     the stream receiving one JSON article per line
+     * @throws IOException if writing to the stream fails
+     */
+    public void exportTopic(Long topicId, OutputStream out) throws IOException {
 
-        List<Article> articles =
-                articleRepository.findByTopic_IdInOrderByCreatedAtDesc(topicIds);
+        try (Stream<ArticleDto> articles = articleRepository.streamByTopicId(topicId)) {
+            writeNdjson(articles.iterator(), out);
+        }
+    }
 
-        return articles.stream()
-                .map(ArticleMapper::toDto)
-                .toList();
+    /**
+     * Serializes values one per line without buffering them.
+     *
+     * @param values the values to write
+     * @param out    the target stream, left open
+     * @throws IOException if writing to the stream fails
+     */
+    private void writeNdjson(Iterator<?> values, OutputStream out) throws IOException {
+
+        if (!values.hasNext()) {
+            return;
+        }
+
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        try (SequenceWriter writer = objectMapper.writer()
+                .withRootValueSeparator("\n")
+                .writeValues(generator)) {
+
+            while (values.hasNext()) {
+                writer.write(values.next());
+            }
+        }
+
+        out.write('\n');
+    }
+
+    /**
+     * Resolves the effective feed page size.
+     *
+     * @param size the requested page size, possibly {@code null}
+     * @return the default size when none or a non-positive size is requested,
+     *         otherwise the requested size capped at {@value #MAX_PAGE_SIZE}
+     */
+    private int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, MAX_PAGE_SIZE);
     }
 }
\ No newline at end of file
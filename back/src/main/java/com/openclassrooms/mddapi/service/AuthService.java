@@ -2,13 +2,20 @@ package com.openclassrooms.mddapi.service;
 
 import com.openclassrooms.mddapi.payload.response.AuthResponse;
 import com.openclassrooms.mddapi.payload.request.LoginRequest;
+import com.openclassrooms.mddapi.payload.request.RefreshRequest;
 import com.openclassrooms.mddapi.payload.request.RegisterRequest;
 import com.openclassrooms.mddapi.mapper.UserMapper;
 import com.openclassrooms.mddapi.model.User;
 import com.openclassrooms.mddapi.repository.UserRepository;
 import com.openclassrooms.mddapi.security.JwtService;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import com.openclassrooms.mddapi.security.PasswordHashingBusyException;
+import com.openclassrooms.mddapi.security.PasswordHashingService;
+import com.openclassrooms.mddapi.security.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
  * Service responsible for authentication and user registration logic.
@@ -18,41 +25,57 @@ import org.springframework.stereotype.Service;
  * <ul>
  *     <li>User login with credential validation</li>
  *     <li>User registration with password hashing</li>
- *     <li>JWT token generation</li>
+ *     <li>JWT access token generation</li>
+ *     <li>Access token renewal from a refresh token, and logout</li>
  * </ul>
  * </p>
  *
  * <p>
- * It ensures secure password verification using {@link PasswordEncoder}
- * and generates authentication tokens via {@link JwtService}.
+ * It ensures secure password verification using {@link PasswordHashingService},
+ * off the request threads, and generates authentication tokens via {@link JwtService}.
  * </p>
  */
 @Service
 public class AuthService {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+
+    /**
+     * Name of the rate limiting rule applied to login attempts per email address.
+     */
+    private static final String LOGIN_EMAIL_RULE = "login-email";
+
     private final UserRepository userRepository;
     private final UserMapper userMapper;
     private final JwtService jwtService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final RefreshTokenService refreshTokenService;
+    private final RateLimiter rateLimiter;
 
     /**
      * Constructs an {@link AuthService} with required dependencies.
      *
-     * @param userRepository  repository used for user persistence
-     * @param userMapper      mapper used to convert {@link User} to DTO
-     * @param passwordEncoder component used for secure password hashing and verification
-     * @param jwtService      service responsible for JWT token generation
+     * @param userRepository         repository used for user persistence
+     * @param userMapper             mapper used to convert {@link User} to DTO
+     * @param passwordHashingService service used for secure password hashing and verification
+     * @param jwtService             service responsible for JWT token generation
+     * @param refreshTokenService    service managing login sessions and refresh tokens
+     * @param rateLimiter            rate limiter applied to login attempts per email
      */
     public AuthService(
             UserRepository userRepository,
             UserMapper userMapper,
-            PasswordEncoder passwordEncoder,
-            JwtService jwtService
+            PasswordHashingService passwordHashingService,
+            JwtService jwtService,
+            RefreshTokenService refreshTokenService,
+            RateLimiter rateLimiter
     ) {
         this.userRepository = userRepository;
         this.userMapper = userMapper;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.jwtService = jwtService;
+        this.refreshTokenService = refreshTokenService;
+        this.rateLimiter = rateLimiter;
     }
 
     /**
@@ -61,32 +84,69 @@ public class AuthService {
      * <p>
      * The method:
      * <ol>
+     *     <li>Limits the login attempts per email address</li>
      *     <li>Retrieves the user by email</li>
      *     <li>Validates the provided password</li>
-     *     <li>Generates a JWT token if authentication succeeds</li>
-     *     <li>Returns an {@link AuthResponse} containing the token and user information</li>
+     *     <li>Upgrades the stored hash when it uses outdated parameters, on a best-effort
+     *     basis (see {@link #upgradePassword(User, String)})</li>
+     *     <li>Opens a session and generates a JWT access token if authentication succeeds</li>
+     *     <li>Returns an {@link AuthResponse} containing the tokens and user information</li>
      * </ol>
      * </p>
      *
      * @param request the login request containing email and password
      * @return an {@link AuthResponse} containing the JWT token and user data
      * @throws RuntimeException if the credentials are invalid
+     * @throws com.openclassrooms.mddapi.security.RateLimitExceededException
+     *         if too many attempts were made for this email
+     * @throws com.openclassrooms.mddapi.security.PasswordHashingBusyException
+     *         if password verification is overloaded
      */
     public AuthResponse login(LoginRequest request) {
 
+        if (request.getEmail() != null) {
+            rateLimiter.acquire(LOGIN_EMAIL_RULE, request.getEmail().trim().toLowerCase());
+        }
+
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("Invalid credentials"));
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordHashingService.matches(request.getPassword(), user.getPassword())) {
             throw new RuntimeException("Invalid credentials");
         }
 
-        String token = jwtService.generateToken(user.getId());
+        if (passwordHashingService.needsUpgrade(user.getPassword())) {
+            upgradePassword(user, request.getPassword());
+        }
 
-        return new AuthResponse(
-                token,
-                userMapper.toDto(user)
-        );
+        return openSession(user);
+    }
+
+    /**
+     * Upgrades the stored hash of a user who has just been authenticated.
+     *
+     * <p>
+     * A legacy hash whose only problem is a missing {@code {bcrypt}} prefix is prefixed,
+     * without hashing anything. Otherwise the password is hashed again with the current
+     * parameters; when the hashing executor is saturated, the upgrade is skipped until a
+     * later login instead of failing this one.
+     * </p>
+     */
+    private void upgradePassword(User user, String rawPassword) {
+
+        String upgraded = passwordHashingService.prefixLegacyHash(user.getPassword());
+
+        if (upgraded == null) {
+            try {
+                upgraded = passwordHashingService.encode(rawPassword);
+            } catch (PasswordHashingBusyException e) {
+                log.debug("Password hash upgrade of user {} postponed: hashing is busy", user.getId());
+                return;
+            }
+        }
+
+        user.setPassword(upgraded);
+        userRepository.save(user);
     }
 
     /**
@@ -96,15 +156,17 @@ public class AuthService {
      * The method:
      * <ol>
      *     <li>Checks if the email is already registered</li>
-     *     <li>Hashes the password using {@link PasswordEncoder}</li>
+     *     <li>Hashes the password using {@link PasswordHashingService}</li>
      *     <li>Persists the new user</li>
-     *     <li>Generates a JWT token for immediate authentication</li>
+     *     <li>Opens a session and generates a JWT access token for immediate authentication</li>
      * </ol>
      * </p>
      *
      * @param request the registration request containing user information
      * @return an {@link AuthResponse} containing the JWT token and user data
      * @throws RuntimeException if the email is already registered
+     * @throws com.openclassrooms.mddapi.security.PasswordHashingBusyException
+     *         if password hashing is overloaded
      */
     public AuthResponse register(RegisterRequest request) {
 
@@ -115,14 +177,63 @@ public class AuthService {
         User user = new User();
         user.setEmail(request.getEmail());
         user.setUsername(request.getUsername());
-        user.setPassword(passwordEncoder.encode(request.getPassword()));
+        user.setPassword(passwordHashingService.encode(request.getPassword()));
 
         userRepository.save(user);
 
-        String token = jwtService.generateToken(user.getId());
+        return openSession(user);
+    }
+
+    /**
+     * Issues a new access token from a refresh token.
+     *
+     * <p>
+     * The refresh token is rotated: the one sent by the client is no longer accepted,
+     * and a new one is returned with the access token.
+     * </p>
+     *
+     * @param request the request containing the current refresh token
+     * @return an {@link AuthResponse} containing the new tokens and user data
+     * @throws ResponseStatusException with HTTP 401 if the refresh token is invalid,
+     *         expired or revoked, or the user no longer exists
+     */
+    public AuthResponse refresh(RefreshRequest request) {
+
+        RefreshTokenService.SessionTokens session =
+                refreshTokenService.rotate(request.getRefreshToken());
+
+        User user = userRepository.findById(session.userId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not found"));
+
+        return new AuthResponse(
+                jwtService.generateToken(user, session.sessionId()),
+                session.refreshToken(),
+                userMapper.toDto(user)
+        );
+    }
+
+    /**
+     * Closes the session of a refresh token.
+     *
+     * <p>
+     * The refresh token and every access token issued from it are rejected from now on.
+     * </p>
+     *
+     * @param request the request containing the refresh token of the session
+     * @throws ResponseStatusException with HTTP 401 if the refresh token is invalid,
+     *         expired or already revoked
+     */
+    public void logout(RefreshRequest request) {
+        refreshTokenService.revoke(request.getRefreshToken());
+    }
+
+    private AuthResponse openSession(User user) {
+
+        RefreshTokenService.SessionTokens session = refreshTokenService.open(user.getId());
 
         return new AuthResponse(
-                token,
+                jwtService.generateToken(user, session.sessionId()),
+                session.refreshToken(),
                 userMapper.toDto(user)
         );
     }
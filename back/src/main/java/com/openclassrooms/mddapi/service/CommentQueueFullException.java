@@ -0,0 +1,35 @@
+package com.openclassrooms.mddapi.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Thrown when the write-behind queue of the comments is full.
+ *
+ * <p>
+ * Answered with HTTP 503 and a {@code Retry-After} header, so that clients
+ * back off until the pending comments have been written.
+ * </p>
+ */
+public class CommentQueueFullException extends ResponseStatusException {
+
+    private final long retryAfterSeconds;
+
+    /**
+     * Constructs a {@link CommentQueueFullException}.
+     *
+     * @param retryAfterSeconds delay suggested to the client before retrying
+     */
+    public CommentQueueFullException(long retryAfterSeconds) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Comments are temporarily overloaded");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public HttpHeaders getResponseHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        return headers;
+    }
+}
@@ -1,16 +1,26 @@
 package com.openclassrooms.mddapi.service;
 
+import com.openclassrooms.mddapi.dto.ArticleRefDto;
+import com.openclassrooms.mddapi.dto.FeedCursor;
+import com.openclassrooms.mddapi.event.CommentCreatedEvent;
 import com.openclassrooms.mddapi.mapper.CommentMapper;
-import com.openclassrooms.mddapi.model.Article;
 import com.openclassrooms.mddapi.model.Comment;
-import com.openclassrooms.mddapi.model.User;
+import com.openclassrooms.mddapi.payload.response.CommentPageResponse;
 import com.openclassrooms.mddapi.payload.response.CommentResponse;
 import com.openclassrooms.mddapi.repository.ArticleRepository;
 import com.openclassrooms.mddapi.repository.CommentRepository;
 import com.openclassrooms.mddapi.repository.UserRepository;
+import com.openclassrooms.mddapi.security.AuthenticatedUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Service responsible for managing comment-related business logic.
@@ -19,34 +29,53 @@ import java.util.List;
  * This service handles:
  * <ul>
  *     <li>Creating comments associated with an article and a user</li>
- *     <li>Retrieving comments for a specific article</li>
+ *     <li>Retrieving the comments of a specific article, one page at a time</li>
  * </ul>
  * </p>
  */
 @Service
 public class CommentService {
 
+    /**
+     * Number of comments returned per page when the client does not ask for a size.
+     */
+    private static final int DEFAULT_PAGE_SIZE = 20;
+
+    /**
+     * Upper bound applied to the requested comment page size.
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final CommentRepository commentRepository;
     private final ArticleRepository articleRepository;
     private final UserRepository userRepository;
     private final CommentMapper commentMapper;
+    private final CommentWriter commentWriter;
+    private final long commitTimeoutMillis;
 
     /**
      * Constructs a {@link CommentService} with required dependencies.
      *
      * @param commentRepository repository for comment persistence
-     * @param articleRepository repository for article retrieval
-     * @param userRepository    repository for user retrieval
+     * @param articleRepository repository for article validation and references
+     * @param userRepository    repository providing user references
      * @param commentMapper     mapper used to convert between entities and responses
+     * @param commentWriter       writer of the new comments, synchronous or behind the request
+     * @param commitTimeoutMillis maximum time a request waits for its queued comment to be
+     *                            committed, with the {@code group-commit} durability
      */
     public CommentService(CommentRepository commentRepository,
                           ArticleRepository articleRepository,
                           UserRepository userRepository,
-                          CommentMapper commentMapper) {
+                          CommentMapper commentMapper,
+                          CommentWriter commentWriter,
+                          @Value("${mdd.comments.write-behind.commit-timeout-ms:5000}") long commitTimeoutMillis) {
         this.commentRepository = commentRepository;
         this.articleRepository = articleRepository;
         this.userRepository = userRepository;
         this.commentMapper = commentMapper;
+        this.commentWriter = commentWriter;
+        this.commitTimeoutMillis = commitTimeoutMillis;
     }
 
     /**
@@ -55,55 +84,150 @@ public class CommentService {
      * <p>
      * The method:
      * <ol>
-     *     <li>Validates the existence of the user</li>
-     *     <li>Validates the existence of the article</li>
-     *     <li>Creates a new {@link Comment} entity</li>
-     *     <li>Persists the comment</li>
-     *     <li>Returns a {@link CommentResponse}</li>
+     *     <li>Reserves the identifier of the comment, before the request holds a connection:
+     *     reserving a new block of identifiers takes a connection of its own</li>
+     *     <li>Validates the existence of the article, reading only its topic and creation date</li>
+     *     <li>Creates a new {@link Comment} entity referencing the author and the article,
+     *     without loading them</li>
+     *     <li>Hands the comment to the {@link CommentWriter}, which inserts it or queues it
+     *     according to {@code mdd.comments.durability}</li>
+     *     <li>Returns a {@link CommentResponse} carrying the identifier of the comment,
+     *     and whether it is already committed</li>
      * </ol>
      * </p>
      *
+     * <p>
+     * The version of the article is bumped and a {@link CommentCreatedEvent} published once
+     * the comment is committed. With the {@code async} durability, the comment is returned
+     * before being committed. With the {@code group-commit} durability, the request waits
+     * at most {@code mdd.comments.write-behind.commit-timeout-ms} for the commit; past that,
+     * the comment is returned as not committed yet, since it is still queued and will be
+     * written under its reserved identifier. Retrying it would write it twice.
+     * </p>
+     *
      * @param articleId the identifier of the article being commented on
      * @param content   the textual content of the comment
-     * @param userID    the identifier of the user creating the comment
-     * @return the created {@link CommentResponse}
-     * @throws RuntimeException if the user or article does not exist
+     * @param author    the authenticated user creating the comment
+     * @return the created {@link CommentResponse}, with whether it is committed
+     * @throws RuntimeException if the article does not exist, or the comment could not be written
+     * @throws CommentQueueFullException if the write-behind queue is full
      */
-    public CommentResponse createComment(
+    public CreatedComment createComment(
             Long articleId,
             String content,
-            Long userID
+            AuthenticatedUser author
     ) {
 
-        User user = userRepository.findById(userID)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        Long commentId = commentRepository.nextId();
 
-        Article article = articleRepository.findById(articleId)
+        ArticleRefDto article = articleRepository.findRefById(articleId)
                 .orElseThrow(() -> new RuntimeException("Article not found"));
 
-        Comment comment = commentMapper.toEntity(content, user, article);
+        Comment comment = commentMapper.toEntity(
+                content,
+                userRepository.getReferenceById(author.id()),
+                articleRepository.getReferenceById(articleId)
+        );
+        comment.setId(commentId);
+        comment.setCreatedAt(LocalDateTime.now());
+
+        CompletableFuture<Void> written = commentWriter.write(comment, new CommentCreatedEvent(
+                articleId,
+                article.getTopicId(),
+                author.id(),
+                article.getCreatedAt(),
+                comment.getCreatedAt()
+        ));
+
+        CommentResponse response = commentMapper.toResponse(comment, author.username());
+
+        if (commentWriter.isAsync()) {
+            return new CreatedComment(response, false);
+        }
 
-        commentRepository.save(comment);
+        try {
+            written.get(commitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Comment could not be saved", e.getCause());
+        } catch (TimeoutException e) {
+            return new CreatedComment(response, false);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Comment could not be saved", e);
+        }
 
-        return commentMapper.toResponse(comment);
+        return new CreatedComment(response, true);
     }
 
     /**
-     * Retrieves all comments associated with a specific article.
+     * Retrieves one page of the comments associated with a specific article.
      *
      * <p>
-     * Comments are ordered by creation date in descending order
-     * (most recent comments first).
+     * Comments are ordered by creation date then identifier in descending order
+     * (most recent comments first). Each page is read with a single statement
+     * that seeks past the cursor and joins the author name.
      * </p>
      *
      * @param articleId the identifier of the article
-     * @return a list of {@link CommentResponse} representing the article's comments
+     * @param cursor    the opaque cursor returned with the previous page,
+     *                  or {@code null} to fetch the first page
+     * @param size      the requested page size, or {@code null} for the default size.
+     *                  Capped at {@value #MAX_PAGE_SIZE}.
+     * @return a {@link CommentPageResponse} containing the page of comments and the next cursor
+     * @throws RuntimeException if the cursor is malformed
      */
-    public List<CommentResponse> getCommentsByArticle(Long articleId) {
+    public CommentPageResponse getCommentPage(Long articleId, String cursor, Integer size) {
+
+        int pageSize = (size == null || size <= 0)
+                ? DEFAULT_PAGE_SIZE
+                : Math.min(size, MAX_PAGE_SIZE);
+
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<CommentResponse> comments;
 
-        List<Comment> comments =
-                commentRepository.findByArticleIdOrderByCreatedAtDesc(articleId);
+        if (cursor == null || cursor.isBlank()) {
+            comments = commentRepository.findFirstPage(articleId, limit);
+        } else {
+            FeedCursor after = FeedCursor.decode(cursor);
+            comments = commentRepository.findPageAfter(
+                    articleId,
+                    after.getCreatedAt(),
+                    after.getId(),
+                    limit
+            );
+        }
 
-        return commentMapper.toResponseList(comments);
+        boolean hasNext = comments.size() > pageSize;
+
+        List<CommentResponse> page = hasNext ? comments.subList(0, pageSize) : comments;
+
+        String nextCursor = null;
+
+        if (hasNext) {
+            CommentResponse last = page.get(page.size() - 1);
+            nextCursor = new FeedCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return new CommentPageResponse(page, nextCursor);
+    }
+
+    /**
+     * Counts the comments associated with a specific article.
+     *
+     * @param articleId the identifier of the article
+     * @return the total number of comments on the article
+     */
+    public long countComments(Long articleId) {
+        return commentRepository.countByArticleId(articleId);
+    }
+
+    /**
+     * A created comment, and whether it was committed before the request returned.
+     *
+     * @param comment   the created comment, with its final identifier
+     * @param committed {@code false} if the comment is still queued to be written
+     */
+    public record CreatedComment(CommentResponse comment, boolean committed) {
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,372 @@
+package com.openclassrooms.mddapi.service;
+
+import com.openclassrooms.mddapi.cache.VersionCounters;
+import com.openclassrooms.mddapi.event.CommentCreatedEvent;
+import com.openclassrooms.mddapi.model.Comment;
+import com.openclassrooms.mddapi.repository.CommentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Writer of the new comments, optionally behind the request.
+ *
+ * <p>
+ * Comments arrive with their identifier already reserved, and are inserted with plain JDBC.
+ * Their durability is selected with {@code mdd.comments.durability}:
+ * <ul>
+ *     <li>{@code sync} (default): the comment is inserted by the request thread, and the
+ *     queue is not used</li>
+ *     <li>{@code group-commit}: the comment is queued and the request waits until the
+ *     batch containing it has been committed. Concurrent comments share one transaction.</li>
+ *     <li>{@code async}: the comment is queued and the request returns at once. Comments
+ *     still queued are lost if the node crashes; they are written on a graceful shutdown.</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * A single writer thread takes the queued comments and inserts them with one JDBC batch
+ * per flush: a flush starts as soon as a comment is queued and waits at most
+ * {@code mdd.comments.write-behind.linger-ms} for more, up to
+ * {@code mdd.comments.write-behind.batch-size} comments. When a batch fails, its comments
+ * are inserted one at a time, so that only the faulty ones (for instance on an article
+ * deleted in the meantime) are dropped.
+ * </p>
+ *
+ * <p>
+ * The queue holds at most {@code mdd.comments.write-behind.queue-capacity} comments: when it
+ * is full, new comments are rejected with HTTP 503 and {@code Retry-After}. The version of the
+ * article is bumped and the {@link CommentCreatedEvent} published once the comment is committed.
+ * </p>
+ */
+@Service
+public class CommentWriter {
+
+    public static final String SYNC = "sync";
+    public static final String GROUP_COMMIT = "group-commit";
+    public static final String ASYNC = "async";
+
+    private static final Logger log = LoggerFactory.getLogger(CommentWriter.class);
+
+    /**
+     * How long the writer waits for a first comment before checking whether it must stop.
+     */
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final CommentRepository commentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final VersionCounters versionCounters;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final String durability;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final long retryAfterSeconds;
+    private final BlockingQueue<PendingComment> queue;
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter rejected;
+    private final Counter failed;
+
+    /**
+     * Held while queuing a comment, and exclusively while stopping: once stopped,
+     * no comment can be queued behind the final drain and never be written.
+     */
+    private final ReadWriteLock stopLock = new ReentrantReadWriteLock();
+
+    private volatile boolean running;
+    private Thread writer;
+
+    /**
+     * Constructs a {@link CommentWriter}.
+     *
+     * @param commentRepository   repository inserting the batches of comments
+     * @param transactionTemplate template running each batch in its own transaction
+     * @param versionCounters     version counters used to build entity tags
+     * @param eventPublisher      publisher notifying listeners of new comments
+     * @param meterRegistry       registry publishing the write-behind metrics
+     * @param durability          durability of new comments: {@code sync}, {@code group-commit}
+     *                            or {@code async}
+     * @param queueCapacity       maximum number of comments waiting to be written
+     * @param batchSize           maximum number of comments inserted per flush
+     * @param lingerMillis        maximum time a flush waits for more comments
+     * @param retryAfterSeconds   delay suggested to rejected clients
+     */
+    public CommentWriter(
+            CommentRepository commentRepository,
+            TransactionTemplate transactionTemplate,
+            VersionCounters versionCounters,
+            ApplicationEventPublisher eventPublisher,
+            MeterRegistry meterRegistry,
+            @Value("${mdd.comments.durability:sync}") String durability,
+            @Value("${mdd.comments.write-behind.queue-capacity:10000}") int queueCapacity,
+            @Value("${mdd.comments.write-behind.batch-size:200}") int batchSize,
+            @Value("${mdd.comments.write-behind.linger-ms:5}") long lingerMillis,
+            @Value("${mdd.comments.write-behind.retry-after-seconds:1}") long retryAfterSeconds
+    ) {
+        this.commentRepository = commentRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.versionCounters = versionCounters;
+        this.eventPublisher = eventPublisher;
+        this.durability = durability.trim().toLowerCase();
+        this.batchSize = Math.max(1, batchSize);
+        this.lingerNanos = Duration.ofMillis(lingerMillis).toNanos();
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+
+        if (!SYNC.equals(this.durability)
+                && !GROUP_COMMIT.equals(this.durability)
+                && !ASYNC.equals(this.durability)) {
+            throw new IllegalArgumentException("Unknown comment durability: " + durability);
+        }
+
+        Gauge.builder("mdd.comments.write-behind.queue", queue, BlockingQueue::size)
+                .description("Comments waiting to be written")
+                .register(meterRegistry);
+
+        this.flushTimer = Timer.builder("mdd.comments.write-behind.flush")
+                .description("Time spent writing a batch of comments")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("mdd.comments.write-behind.batch")
+                .description("Number of comments written per flush")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("mdd.comments.write-behind.rejected")
+                .description("Comments rejected because the queue was full")
+                .register(meterRegistry);
+        this.failed = Counter.builder("mdd.comments.write-behind.failed")
+                .description("Queued comments that could not be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the writer thread, unless comments are written synchronously.
+     */
+    @PostConstruct
+    public void start() {
+
+        if (!isWriteBehind()) {
+            return;
+        }
+
+        running = true;
+        writer = new Thread(this::run, "comment-writer");
+        writer.start();
+    }
+
+    /**
+     * Stops accepting comments and writes the ones still queued.
+     *
+     * @throws InterruptedException if interrupted while waiting for the writer thread
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+
+        if (writer == null) {
+            return;
+        }
+
+        markStopped();
+        writer.join();
+
+        List<PendingComment> late = new ArrayList<>();
+        queue.drainTo(late);
+
+        if (!late.isEmpty()) {
+            flush(late);
+        }
+    }
+
+    /**
+     * Stops accepting comments. Comments queued before are still written by the writer thread.
+     */
+    private void markStopped() {
+        stopLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            stopLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indicates whether new comments go through the write-behind queue.
+     *
+     * @return {@code false} if comments are written by the request thread
+     */
+    public boolean isWriteBehind() {
+        return !SYNC.equals(durability);
+    }
+
+    /**
+     * Indicates whether requests return before their comment is committed.
+     *
+     * @return {@code true} if comments are acknowledged as soon as they are queued
+     */
+    public boolean isAsync() {
+        return ASYNC.equals(durability);
+    }
+
+    /**
+     * Writes a comment, or queues it to be written.
+     *
+     * @param comment the comment, with its identifier, author, article and creation date set
+     * @param event   the event to publish once the comment is committed
+     * @return a future completed when the comment is committed, or completed exceptionally
+     *         if a queued comment could not be written
+     * @throws CommentQueueFullException if the queue is full or the writer is stopped
+     * @throws org.springframework.dao.DataAccessException if a synchronous insert fails
+     */
+    public CompletableFuture<Void> write(Comment comment, CommentCreatedEvent event) {
+
+        PendingComment pending = new PendingComment(comment, event, new CompletableFuture<>());
+
+        if (!isWriteBehind()) {
+            insert(List.of(pending));
+            acknowledge(pending);
+            return pending.written();
+        }
+
+        boolean queued;
+
+        stopLock.readLock().lock();
+        try {
+            queued = running && queue.offer(pending);
+        } finally {
+            stopLock.readLock().unlock();
+        }
+
+        if (!queued) {
+            rejected.increment();
+            throw new CommentQueueFullException(retryAfterSeconds);
+        }
+
+        return pending.written();
+    }
+
+    /**
+     * Loop of the writer thread: takes the queued comments by batches until stopped,
+     * then writes what is left in the queue.
+     */
+    private void run() {
+
+        List<PendingComment> batch = new ArrayList<>(batchSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingComment first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                long deadline = System.nanoTime() + lingerNanos;
+
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    PendingComment next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                markStopped();
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes a batch in one transaction, falling back to one transaction per comment
+     * when the batch fails, then acknowledges the comments written.
+     */
+    private void flush(List<PendingComment> batch) {
+
+        batchSizes.record(batch.size());
+
+        try {
+            flushTimer.record(() -> insert(batch));
+        } catch (RuntimeException batchFailure) {
+            if (batch.size() == 1) {
+                fail(batch.get(0), batchFailure);
+                return;
+            }
+            for (PendingComment pending : batch) {
+                try {
+                    insert(List.of(pending));
+                    acknowledge(pending);
+                } catch (RuntimeException e) {
+                    fail(pending, e);
+                }
+            }
+            return;
+        }
+
+        batch.forEach(this::acknowledge);
+    }
+
+    private void insert(List<PendingComment> batch) {
+        transactionTemplate.executeWithoutResult(status -> commentRepository.insertAll(
+                batch.stream().map(PendingComment::comment).toList()
+        ));
+    }
+
+    /**
+     * Publishes a committed comment. The comment is reported as written even if a listener fails.
+     */
+    private void acknowledge(PendingComment pending) {
+        try {
+            versionCounters.bumpArticle(pending.event().getArticleId());
+            eventPublisher.publishEvent(pending.event());
+        } catch (RuntimeException e) {
+            log.warn("Listener failed for comment {}", pending.comment().getId(), e);
+        } finally {
+            pending.written().complete(null);
+        }
+    }
+
+    private void fail(PendingComment pending, RuntimeException e) {
+        failed.increment();
+        log.warn("Comment {} on article {} could not be written",
+                pending.comment().getId(), pending.event().getArticleId(), e);
+        pending.written().completeExceptionally(e);
+    }
+
+    /**
+     * A queued comment, with the event describing it and the future of its write.
+     */
+    private record PendingComment(Comment comment,
+                                  CommentCreatedEvent event,
+                                  CompletableFuture<Void> written) {
+    }
+}
@@ -0,0 +1,337 @@
+package com.openclassrooms.mddapi.service;
+
+import com.openclassrooms.mddapi.cache.SubscriptionIndex;
+import com.openclassrooms.mddapi.event.ArticleCreatedEvent;
+import com.openclassrooms.mddapi.event.SubscriptionChangedEvent;
+import com.openclassrooms.mddapi.payload.response.ArticleNotification;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Service pushing new articles to connected clients with server-sent events.
+ *
+ * <p>
+ * This service:
+ * <ul>
+ *     <li>Keeps a registry of open connections indexed by subscribed topic</li>
+ *     <li>Pushes a compact {@link ArticleNotification} to every connection subscribed
+ *     to the topic of an article once it is committed</li>
+ *     <li>Follows the committed subscription changes of connected users</li>
+ *     <li>Sends periodic heartbeats so that idle connections are kept open
+ *     and dead ones are detected</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Each connection buffers at most {@code mdd.sse.buffer-size} pending events and drops
+ * the oldest one when a slow client falls behind. Events are written by the SSE executor,
+ * never by the thread publishing the article. The number of connections per node is capped
+ * by {@code mdd.sse.max-connections}.
+ * </p>
+ */
+@Service
+public class FeedStreamService {
+
+    private static final String ARTICLE_EVENT = "article";
+
+    private final SubscriptionIndex subscriptionIndex;
+    private final Executor sseExecutor;
+
+    private final int maxConnections;
+    private final int bufferSize;
+    private final long timeoutMillis;
+
+    private final ConcurrentHashMap<Long, Set<Connection>> connectionsByTopic = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Set<Connection>> connectionsByUser = new ConcurrentHashMap<>();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+
+    /**
+     * Constructs a {@link FeedStreamService}.
+     *
+     * @param subscriptionIndex index used to read the topics of a connecting user
+     * @param sseExecutor       executor writing events to the clients
+     * @param maxConnections    maximum number of open connections on this node
+     * @param bufferSize        maximum number of pending events per connection
+     * @param timeoutMillis     lifetime of a connection before the client must reconnect
+     */
+    public FeedStreamService(
+            SubscriptionIndex subscriptionIndex,
+            @Qualifier("sseExecutor") Executor sseExecutor,
+            @Value("${mdd.sse.max-connections:1000}") int maxConnections,
+            @Value("${mdd.sse.buffer-size:32}") int bufferSize,
+            @Value("${mdd.sse.timeout-ms:1800000}") long timeoutMillis
+    ) {
+        this.subscriptionIndex = subscriptionIndex;
+        this.sseExecutor = sseExecutor;
+        this.maxConnections = maxConnections;
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Opens a new event stream for a user.
+     *
+     * @param userId the identifier of the connecting user
+     * @return the {@link SseEmitter} bound to the connection
+     * @throws ResponseStatusException with HTTP 503 if the node has reached its connection cap
+     */
+    public SseEmitter connect(Long userId) {
+
+        if (connectionCount.incrementAndGet() > maxConnections) {
+            connectionCount.decrementAndGet();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many open streams");
+        }
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        Connection connection = new Connection(userId, emitter);
+
+        emitter.onCompletion(() -> unregister(connection));
+        emitter.onTimeout(() -> unregister(connection));
+        emitter.onError(error -> unregister(connection));
+
+        try {
+            long[] topicIds = subscriptionIndex.getTopicIds(userId);
+
+            connectionsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(connection);
+
+            for (long topicId : topicIds) {
+                addToTopic(topicId, connection);
+            }
+        } catch (RuntimeException e) {
+            // Releases the slot taken above, and whatever was registered.
+            unregister(connection);
+            throw e;
+        }
+
+        return emitter;
+    }
+
+    /**
+     * Notifies the connections subscribed to the topic of a committed article.
+     *
+     * @param event the event describing the created article
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onArticleCreated(ArticleCreatedEvent event) {
+
+        Set<Connection> connections = connectionsByTopic.get(event.getTopicId());
+
+        if (connections == null || connections.isEmpty()) {
+            return;
+        }
+
+        StreamEvent message = StreamEvent.message(
+                ARTICLE_EVENT,
+                String.valueOf(event.getArticleId()),
+                new ArticleNotification(
+                        event.getArticleId(),
+                        event.getTopicId(),
+                        event.getCreatedAt()
+                )
+        );
+
+        connections.forEach(connection -> connection.offer(message));
+    }
+
+    /**
+     * Starts or stops pushing the articles of a topic to the open connections of a user,
+     * once the subscription change has committed.
+     *
+     * <p>
+     * A rolled back subscription never reaches the open connections.
+     * </p>
+     *
+     * @param event the event describing the subscription change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSubscriptionChanged(SubscriptionChangedEvent event) {
+
+        Set<Connection> connections = connectionsByUser.getOrDefault(event.getUserId(), Set.of());
+
+        if (event.isSubscribed()) {
+            connections.forEach(connection -> addToTopic(event.getTopicId(), connection));
+        } else {
+            connections.forEach(connection -> removeFromTopic(event.getTopicId(), connection));
+        }
+    }
+
+    /**
+     * Sends a heartbeat comment to every open connection.
+     */
+    @Scheduled(fixedDelayString = "${mdd.sse.heartbeat-ms:15000}")
+    public void sendHeartbeats() {
+
+        StreamEvent heartbeat = StreamEvent.comment("heartbeat");
+
+        connectionsByUser.values()
+                .forEach(connections -> connections.forEach(connection -> connection.offer(heartbeat)));
+    }
+
+    /**
+     * Returns the number of open connections on this node.
+     *
+     * @return the number of open connections
+     */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    private void addToTopic(Long topicId, Connection connection) {
+        connection.topicIds.add(topicId);
+        connectionsByTopic.computeIfAbsent(topicId, id -> ConcurrentHashMap.newKeySet()).add(connection);
+    }
+
+    private void removeFromTopic(Long topicId, Connection connection) {
+        connection.topicIds.remove(topicId);
+        connectionsByTopic.computeIfPresent(topicId, (id, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+
+    private void unregister(Connection connection) {
+
+        if (!connection.closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        Set.copyOf(connection.topicIds).forEach(topicId -> removeFromTopic(topicId, connection));
+
+        connectionsByUser.computeIfPresent(connection.userId, (id, connections) -> {
+            connections.remove(connection);
+            return connections.isEmpty() ? null : connections;
+        });
+
+        connectionCount.decrementAndGet();
+    }
+
+    /**
+     * An open event stream with its bounded buffer of pending events.
+     */
+    private final class Connection {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Set<Long> topicIds = ConcurrentHashMap.newKeySet();
+        private final ArrayDeque<StreamEvent> pending = new ArrayDeque<>();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        /**
+         * Buffers an event, dropping the oldest one when the buffer is full,
+         * and schedules the delivery of the buffer.
+         */
+        private void offer(StreamEvent event) {
+
+            if (closed.get()) {
+                return;
+            }
+
+            synchronized (pending) {
+                if (pending.size() == bufferSize) {
+                    pending.pollFirst();
+                }
+                pending.addLast(event);
+            }
+
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+
+            if (!draining.compareAndSet(false, true)) {
+                return;
+            }
+
+            try {
+                sseExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Events stay buffered until the next offer.
+                draining.set(false);
+            }
+        }
+
+        private void drain() {
+
+            try {
+                StreamEvent event;
+
+                while ((event = poll()) != null) {
+                    emitter.send(event.toBuilder());
+                }
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+                unregister(this);
+                return;
+            } finally {
+                draining.set(false);
+            }
+
+            boolean morePending;
+            synchronized (pending) {
+                morePending = !pending.isEmpty();
+            }
+
+            if (morePending) {
+                scheduleDrain();
+            }
+        }
+
+        private StreamEvent poll() {
+            synchronized (pending) {
+                return pending.pollFirst();
+            }
+        }
+    }
+
+    /**
+     * Immutable content of an event, shared by all the connections it is offered to.
+     * {@link SseEmitter.SseEventBuilder} accumulates state when built, so each
+     * connection builds its own from this content when sending it.
+     *
+     * @param name    the event name, or {@code null} for a comment
+     * @param id      the event identifier, or {@code null} for a comment
+     * @param data    the event payload, or {@code null} for a comment
+     * @param comment the comment text, or {@code null} for a named event
+     */
+    private record StreamEvent(String name, String id, Object data, String comment) {
+
+        private static StreamEvent message(String name, String id, Object data) {
+            return new StreamEvent(name, id, data, null);
+        }
+
+        private static StreamEvent comment(String comment) {
+            return new StreamEvent(null, null, null, comment);
+        }
+
+        private SseEmitter.SseEventBuilder toBuilder() {
+
+            if (comment != null) {
+                return SseEmitter.event().comment(comment);
+            }
+
+            return SseEmitter.event().name(name).id(id).data(data);
+        }
+    }
+}
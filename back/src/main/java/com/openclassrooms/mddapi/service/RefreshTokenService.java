@@ -0,0 +1,233 @@
+package com.openclassrooms.mddapi.service;
+
+import com.openclassrooms.mddapi.cache.RevocationList;
+import com.openclassrooms.mddapi.model.RefreshSession;
+import com.openclassrooms.mddapi.repository.RefreshSessionRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.transaction.Transactional;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Service managing login sessions and their refresh tokens.
+ *
+ * <p>
+ * This service:
+ * <ul>
+ *     <li>Opens a session with a random refresh token at login or registration</li>
+ *     <li>Rotates the refresh token each time it is used to obtain a new access token</li>
+ *     <li>Revokes one session (logout), or every other session of a user (password change)</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Refresh tokens are opaque random values; only their SHA-256 hash is stored.
+ * Revoked sessions are also recorded in the {@link RevocationList} once the revocation
+ * is committed, so that the access tokens they issued are rejected without waiting for
+ * their expiration.
+ * </p>
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshSessionRepository refreshSessionRepository;
+    private final RevocationList revocationList;
+    private final long refreshTtlDays;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Constructs a {@link RefreshTokenService}.
+     *
+     * @param refreshSessionRepository repository for login sessions
+     * @param revocationList           in-memory set of revoked sessions
+     * @param refreshTtlDays           lifetime of a refresh token
+     */
+    public RefreshTokenService(
+            RefreshSessionRepository refreshSessionRepository,
+            RevocationList revocationList,
+            @Value("${mdd.jwt.refresh-ttl-days:30}") long refreshTtlDays
+    ) {
+        this.refreshSessionRepository = refreshSessionRepository;
+        this.revocationList = revocationList;
+        this.refreshTtlDays = refreshTtlDays;
+    }
+
+    /**
+     * Opens a new session for a user.
+     *
+     * @param userId the identifier of the authenticated user
+     * @return the identifiers and refresh token of the new session
+     */
+    @Transactional
+    public SessionTokens open(Long userId) {
+
+        String refreshToken = newToken();
+        LocalDateTime now = LocalDateTime.now();
+
+        RefreshSession session = new RefreshSession();
+        session.setId(UUID.randomUUID().toString());
+        session.setUserId(userId);
+        session.setTokenHash(hash(refreshToken));
+        session.setCreatedAt(now);
+        session.setExpiresAt(now.plusDays(refreshTtlDays));
+
+        refreshSessionRepository.save(session);
+
+        return new SessionTokens(session.getId(), userId, refreshToken);
+    }
+
+    /**
+     * Replaces a refresh token by a new one, within the same session.
+     *
+     * <p>
+     * The replacement is conditional on the stored hash, so that two concurrent
+     * refreshes with the same token cannot both succeed.
+     * </p>
+     *
+     * @param refreshToken the current refresh token
+     * @return the identifiers and new refresh token of the session
+     * @throws ResponseStatusException with HTTP 401 if the token is unknown, expired or revoked
+     */
+    @Transactional
+    public SessionTokens rotate(String refreshToken) {
+
+        RefreshSession session = findUsable(refreshToken);
+
+        String newToken = newToken();
+
+        int updated = refreshSessionRepository.rotate(
+                session.getId(),
+                session.getTokenHash(),
+                hash(newToken),
+                LocalDateTime.now().plusDays(refreshTtlDays)
+        );
+
+        if (updated == 0) {
+            throw invalidToken();
+        }
+
+        return new SessionTokens(session.getId(), session.getUserId(), newToken);
+    }
+
+    /**
+     * Revokes the session of a refresh token.
+     *
+     * @param refreshToken the refresh token of the session to close
+     * @throws ResponseStatusException with HTTP 401 if the token is unknown, expired or revoked
+     */
+    @Transactional
+    public void revoke(String refreshToken) {
+        revoke(List.of(findUsable(refreshToken).getId()));
+    }
+
+    /**
+     * Revokes every active session of a user but one, typically the session
+     * from which the user changed their password.
+     *
+     * @param userId        the identifier of the user
+     * @param keptSessionId the identifier of the session left open, or {@code null}
+     *                      to revoke every session
+     */
+    @Transactional
+    public void revokeAllExcept(Long userId, String keptSessionId) {
+        revoke(refreshSessionRepository.findActiveIdsByUserId(userId).stream()
+                .filter(sessionId -> !sessionId.equals(keptSessionId))
+                .toList());
+    }
+
+    /**
+     * Revokes sessions in the database, and in the {@link RevocationList} once the
+     * revocation is committed: a rolled back revocation must not reject tokens.
+     */
+    private void revoke(List<String> sessionIds) {
+
+        if (sessionIds.isEmpty()) {
+            return;
+        }
+
+        refreshSessionRepository.revokeAll(sessionIds, LocalDateTime.now());
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            revocationList.revoke(sessionIds);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                revocationList.revoke(sessionIds);
+            }
+        });
+    }
+
+    private RefreshSession findUsable(String refreshToken) {
+
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw invalidToken();
+        }
+
+        RefreshSession session = refreshSessionRepository.findByTokenHash(hash(refreshToken))
+                .orElseThrow(RefreshTokenService::invalidToken);
+
+        if (session.getRevokedAt() != null || session.getExpiresAt().isBefore(LocalDateTime.now())) {
+            throw invalidToken();
+        }
+
+        return session;
+    }
+
+    private String newToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String hash(String token) {
+
+        byte[] digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16))
+                    .append(Character.forDigit(b & 0xF, 16));
+        }
+
+        return hex.toString();
+    }
+
+    private static ResponseStatusException invalidToken() {
+        return new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token");
+    }
+
+    /**
+     * Identifiers and refresh token of a session.
+     *
+     * @param sessionId    the identifier of the session, embedded in its access tokens
+     * @param userId       the identifier of the user owning the session
+     * @param refreshToken the current refresh token, to be returned to the client
+     */
+    public record SessionTokens(String sessionId, Long userId, String refreshToken) {
+    }
+}
@@ -1,18 +1,20 @@
 package com.openclassrooms.mddapi.service;
 
+import com.openclassrooms.mddapi.cache.SubscriptionIndex;
+import com.openclassrooms.mddapi.cache.TopicCatalog;
 import com.openclassrooms.mddapi.dto.TopicDto;
-import com.openclassrooms.mddapi.mapper.TopicMapper;
-import com.openclassrooms.mddapi.model.Topic;
-import com.openclassrooms.mddapi.model.User;
+import com.openclassrooms.mddapi.event.SubscriptionChangedEvent;
 import com.openclassrooms.mddapi.model.UserTopic;
 import com.openclassrooms.mddapi.repository.TopicRepository;
-import com.openclassrooms.mddapi.repository.UserRepository;
 import com.openclassrooms.mddapi.repository.UserTopicRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Service responsible for managing user subscriptions to topics.
@@ -22,6 +24,7 @@ import java.util.stream.Collectors;
  * <ul>
  *     <li>Subscribing a user to a topic</li>
  *     <li>Unsubscribing a user from a topic</li>
+ *     <li>Replacing all the subscriptions of a user at once</li>
  *     <li>Retrieving all topics a user is subscribed to</li>
  * </ul>
  * </p>
@@ -34,81 +37,200 @@ import java.util.stream.Collectors;
 @Transactional
 public class SubscriptionService {
 
-    private final UserRepository userRepository;
     private final TopicRepository topicRepository;
     private final UserTopicRepository userTopicRepository;
-    private final TopicMapper topicMapper;
+    private final TimelineService timelineService;
+    private final SubscriptionIndex subscriptionIndex;
+    private final TopicCatalog topicCatalog;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Constructs a {@link SubscriptionService} with required dependencies.
      *
-     * @param userRepository      repository for user persistence
      * @param topicRepository     repository for topic persistence
      * @param userTopicRepository repository for managing user-topic relationships
-     * @param topicMapper         mapper used to convert {@link Topic} to {@link TopicDto}
+     * @param timelineService     service maintaining precomputed feed timelines
+     * @param subscriptionIndex   in-memory index of the topics each user is subscribed to
+     * @param topicCatalog        in-memory snapshot of the topic catalog
+     * @param eventPublisher      publisher of subscription changes
      */
     public SubscriptionService(
-            UserRepository userRepository,
             TopicRepository topicRepository,
             UserTopicRepository userTopicRepository,
-            TopicMapper topicMapper
+            TimelineService timelineService,
+            SubscriptionIndex subscriptionIndex,
+            TopicCatalog topicCatalog,
+            ApplicationEventPublisher eventPublisher
     ) {
-        this.userRepository = userRepository;
         this.topicRepository = topicRepository;
         this.userTopicRepository = userTopicRepository;
-        this.topicMapper = topicMapper;
+        this.timelineService = timelineService;
+        this.subscriptionIndex = subscriptionIndex;
+        this.topicCatalog = topicCatalog;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * Subscribes a user to a specific topic.
      *
      * <p>
+     * The operation is idempotent: subscribing again to a topic completes silently.
      * The method:
      * <ol>
-     *     <li>Checks if the subscription already exists</li>
-     *     <li>Validates the existence of the user</li>
-     *     <li>Validates the existence of the topic</li>
-     *     <li>Creates and persists a {@link UserTopic} association</li>
+     *     <li>Inserts the {@link UserTopic} association with a single insert-if-absent
+     *     statement, which relies on the unique index of the association instead of
+     *     a prior check, and never loads the user or the topic</li>
+     *     <li>If no row was inserted, tells an existing subscription from a missing topic</li>
+     *     <li>Backfills the user's timeline with the recent articles of the topic</li>
+     *     <li>Publishes a {@link SubscriptionChangedEvent} updating the in-memory index,
+     *     which then bumps the version of the user's subscriptions, topic statistics
+     *     and the open streams of the user, once committed</li>
      * </ol>
      * </p>
      *
      * @param userId  the identifier of the user
      * @param topicId the identifier of the topic
-     * @throws RuntimeException if the user or topic does not exist,
-     *                          or if the user is already subscribed
+     * @throws RuntimeException if the user or topic does not exist
      */
     public void subscribe(Long userId, Long topicId) {
 
-        if (userTopicRepository.existsByUserIdAndTopicId(userId, topicId)) {
-            throw new RuntimeException("Already subscribed");
-        }
+        if (userTopicRepository.insertIfAbsent(userId, topicId) == 0) {
+
+            if (userTopicRepository.existsByUserIdAndTopicId(userId, topicId)) {
+                return;
+            }
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+            if (!topicRepository.existsById(topicId)) {
+                throw new RuntimeException("Topic not found");
+            }
 
-        Topic topic = topicRepository.findById(topicId)
-                .orElseThrow(() -> new RuntimeException("Topic not found"));
+            throw new RuntimeException("User not found");
+        }
 
-        UserTopic subscription = new UserTopic();
-        subscription.setUser(user);
-        subscription.setTopic(topic);
+        timelineService.backfill(userId, topicId);
 
-        userTopicRepository.save(subscription);
+        eventPublisher.publishEvent(new SubscriptionChangedEvent(userId, topicId, true));
     }
 
     /**
      * Unsubscribes a user from a specific topic.
      *
      * <p>
-     * This method removes the association between the user and the topic.
-     * If no subscription exists, the operation completes silently.
+     * This method removes the association between the user and the topic with a
+     * single bulk delete statement, and prunes the articles of the topic from the
+     * user's timeline. If no subscription exists, the operation completes silently.
+     * When a subscription was removed, a {@link SubscriptionChangedEvent} updates
+     * the in-memory index, topic statistics and the open streams of the user once committed.
      * </p>
      *
      * @param userId  the identifier of the user
      * @param topicId the identifier of the topic
      */
     public void unsubscribe(Long userId, Long topicId) {
-        userTopicRepository.deleteByUserIdAndTopicId(userId, topicId);
+
+        if (userTopicRepository.deleteByUserIdAndTopicId(userId, topicId) == 0) {
+            return;
+        }
+
+        timelineService.prune(userId, topicId);
+        eventPublisher.publishEvent(new SubscriptionChangedEvent(userId, topicId, false));
+    }
+
+    /**
+     * Replaces the subscriptions of a user with a given set of topics.
+     *
+     * <p>
+     * The method:
+     * <ol>
+     *     <li>Validates the requested topics against the in-memory catalog</li>
+     *     <li>Reads the current subscriptions and computes the difference in memory</li>
+     *     <li>Inserts the missing subscriptions with a single JDBC batch, then reads back
+     *     which of them this batch inserted</li>
+     *     <li>Locks the extra subscriptions still present and deletes them with a single
+     *     {@code DELETE ... IN} statement</li>
+     *     <li>Updates the timeline, and publishes a {@link SubscriptionChangedEvent} per
+     *     subscription actually inserted or deleted, which updates the open streams once committed</li>
+     * </ol>
+     * All changes are applied in a single transaction.
+     * </p>
+     *
+     * @param userId   the identifier of the user
+     * @param topicIds the identifiers of the topics the user must end up subscribed to
+     * @return the resulting list of {@link TopicDto}, ordered by identifier
+     * @throws RuntimeException if one of the topics does not exist
+     */
+    public List<TopicDto> replaceSubscriptions(Long userId, Collection<Long> topicIds) {
+
+        long[] desired = topicIds.stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .distinct()
+                .toArray();
+
+        List<TopicDto> topics = topicCatalog.getTopics(desired);
+
+        if (topics.size() != desired.length) {
+            throw new RuntimeException("Topic not found");
+        }
+
+        long[] current = userTopicRepository.findTopicIdsByUserId(userId)
+                .stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+
+        List<Long> added = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+
+        for (long topicId : desired) {
+            if (Arrays.binarySearch(current, topicId) < 0) {
+                added.add(topicId);
+            }
+        }
+
+        for (long topicId : current) {
+            if (Arrays.binarySearch(desired, topicId) < 0) {
+                removed.add(topicId);
+            }
+        }
+
+        if (added.isEmpty() && removed.isEmpty()) {
+            return topics;
+        }
+
+        if (!added.isEmpty()) {
+
+            userTopicRepository.insertAllIfAbsent(userId, added);
+
+            // Rows inserted meanwhile by a concurrent request are skipped: the transaction
+            // snapshot only shows them if this batch inserted them.
+            List<Long> subscribed = userTopicRepository.findTopicIdsByUserId(userId);
+
+            for (Long topicId : added) {
+                if (subscribed.contains(topicId)) {
+                    timelineService.backfill(userId, topicId);
+                    eventPublisher.publishEvent(new SubscriptionChangedEvent(userId, topicId, true));
+                }
+            }
+        }
+
+        if (!removed.isEmpty()) {
+
+            // Rows deleted meanwhile by a concurrent request are skipped: only the rows
+            // still present, locked until the end of the transaction, are deleted.
+            List<Long> deleted = userTopicRepository.lockTopicIds(userId, removed);
+
+            if (!deleted.isEmpty()) {
+                userTopicRepository.deleteByUserIdAndTopicIdIn(userId, deleted);
+                timelineService.prune(userId, deleted);
+            }
+
+            for (Long topicId : deleted) {
+                eventPublisher.publishEvent(new SubscriptionChangedEvent(userId, topicId, false));
+            }
+        }
+
+        return topics;
     }
 
     /**
@@ -117,9 +239,8 @@ public class SubscriptionService {
      * <p>
      * The method:
      * <ol>
-     *     <li>Fetches all {@link UserTopic} associations for the user</li>
-     *     <li>Extracts the related {@link Topic} entities</li>
-     *     <li>Maps them to {@link TopicDto}</li>
+     *     <li>Reads the identifiers of the subscribed topics from the {@link SubscriptionIndex}</li>
+     *     <li>Resolves them to {@link TopicDto} from the in-memory {@link TopicCatalog}</li>
      * </ol>
      * </p>
      *
@@ -128,10 +249,6 @@ public class SubscriptionService {
      */
     public List<TopicDto> getUserTopics(Long userId) {
 
-        return userTopicRepository.findByUserId(userId)
-                .stream()
-                .map(UserTopic::getTopic)
-                .map(topicMapper::toDto)
-                .collect(Collectors.toList());
+        return topicCatalog.getTopics(subscriptionIndex.getTopicIds(userId));
     }
 }
\ No newline at end of file
@@ -0,0 +1,442 @@
+package com.openclassrooms.mddapi.service;
+
+import com.openclassrooms.mddapi.cache.VersionCounters;
+import com.openclassrooms.mddapi.dto.ArticleSummaryDto;
+import com.openclassrooms.mddapi.dto.FeedCursor;
+import com.openclassrooms.mddapi.event.ArticleCreatedEvent;
+import com.openclassrooms.mddapi.event.SubscriptionChangedEvent;
+import com.openclassrooms.mddapi.model.TimelineEntry;
+import com.openclassrooms.mddapi.repository.ArticleRepository;
+import com.openclassrooms.mddapi.repository.TimelineEntryRepository;
+import com.openclassrooms.mddapi.repository.TopicRepository;
+import com.openclassrooms.mddapi.repository.UserTopicRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Service responsible for the fan-out-on-write feed mode.
+ *
+ * <p>
+ * When enabled, this service:
+ * <ul>
+ *     <li>Pushes every new article into the timeline of each subscriber of its topic,
+ *     asynchronously and in batches, once the article transaction has committed</li>
+ *     <li>Backfills the recent articles of a topic into a timeline on subscribe</li>
+ *     <li>Prunes the articles of a topic from a timeline on unsubscribe</li>
+ *     <li>Backfills the timelines of the existing subscriptions on startup, unless
+ *     {@code mdd.feed.fanout.backfill-on-startup} is {@code false}</li>
+ *     <li>Reads feed pages from the precomputed timeline</li>
+ * </ul>
+ * </p>
+ *
+ * <p>
+ * Topics with at least {@code mdd.feed.fanout.popular-topic-threshold} subscribers
+ * are never fanned out: writing one row per subscriber would be too costly, so their
+ * articles are read on demand from the articles table and merged with the timeline.
+ * When an unsubscription brings a topic back under the threshold, its recent articles
+ * are backfilled into the timelines of its subscribers; until this completes, the topic
+ * keeps being read on demand.
+ * </p>
+ */
+@Service
+public class TimelineService {
+
+    private static final Logger log = LoggerFactory.getLogger(TimelineService.class);
+
+    private final TimelineEntryRepository timelineEntryRepository;
+    private final UserTopicRepository userTopicRepository;
+    private final ArticleRepository articleRepository;
+    private final TopicRepository topicRepository;
+    private final VersionCounters versionCounters;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final long popularTopicThreshold;
+    private final int backfillSize;
+    private final boolean backfillOnStartup;
+
+    /**
+     * Topics whose subscriber timelines are being backfilled, read on demand meanwhile.
+     */
+    private final Set<Long> backfillingTopicIds = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a {@link TimelineService} with required dependencies and settings.
+     *
+     * @param timelineEntryRepository repository for timeline entries
+     * @param userTopicRepository     repository for managing user-topic subscriptions
+     * @param articleRepository       repository for article retrieval
+     * @param topicRepository         repository listing the topics to backfill on startup
+     * @param versionCounters         version counters bumped once an article is fanned out
+     * @param transactionTemplate     template running each backfill batch in its own transaction
+     * @param enabled                 whether fan-out-on-write is enabled
+     * @param batchSize               number of subscribers written per batch
+     * @param popularTopicThreshold   subscriber count from which a topic is read on demand
+     * @param backfillSize            number of recent articles copied on subscribe
+     * @param backfillOnStartup       whether the existing subscriptions are backfilled on startup
+     */
+    public TimelineService(
+            TimelineEntryRepository timelineEntryRepository,
+            UserTopicRepository userTopicRepository,
+            ArticleRepository articleRepository,
+            TopicRepository topicRepository,
+            VersionCounters versionCounters,
+            TransactionTemplate transactionTemplate,
+            @Value("${mdd.feed.fanout.enabled:false}") boolean enabled,
+            @Value("${mdd.feed.fanout.batch-size:500}") int batchSize,
+            @Value("${mdd.feed.fanout.popular-topic-threshold:10000}") long popularTopicThreshold,
+            @Value("${mdd.feed.fanout.backfill-size:200}") int backfillSize,
+            @Value("${mdd.feed.fanout.backfill-on-startup:true}") boolean backfillOnStartup
+    ) {
+        this.timelineEntryRepository = timelineEntryRepository;
+        this.userTopicRepository = userTopicRepository;
+        this.articleRepository = articleRepository;
+        this.topicRepository = topicRepository;
+        this.versionCounters = versionCounters;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.popularTopicThreshold = popularTopicThreshold;
+        this.backfillSize = backfillSize;
+        this.backfillOnStartup = backfillOnStartup;
+    }
+
+    /**
+     * Indicates whether the feed is served from precomputed timelines.
+     *
+     * @return {@code true} if fan-out-on-write is enabled
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Pushes a newly created article into the timelines of its topic subscribers.
+     *
+     * <p>
+     * Runs on the timeline executor once the article transaction has committed.
+     * Subscribers are paged by identifier and written {@code batchSize} at a time, each
+     * page with a single JDBC batch that skips the timelines already holding the article.
+     * Articles of popular topics are skipped. Once every timeline holds the article,
+     * the version of the topic is bumped again, so that feed pages cached while the
+     * fan-out was running are refreshed.
+     * </p>
+     *
+     * @param event the event describing the created article
+     */
+    @Async("timelineExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onArticleCreated(ArticleCreatedEvent event) {
+
+        if (!enabled || isPopular(event.getTopicId())) {
+            return;
+        }
+
+        Long afterUserId = 0L;
+        List<Long> subscriberIds;
+
+        do {
+            subscriberIds = userTopicRepository.findSubscriberIdsAfter(
+                    event.getTopicId(),
+                    afterUserId,
+                    PageRequest.of(0, batchSize)
+            );
+
+            if (subscriberIds.isEmpty()) {
+                break;
+            }
+
+            List<TimelineEntry> batch = subscriberIds.stream()
+                    .map(userId -> new TimelineEntry(
+                            userId,
+                            event.getArticleId(),
+                            event.getTopicId(),
+                            event.getCreatedAt()
+                    ))
+                    .toList();
+
+            timelineEntryRepository.insertAllIfAbsent(batch);
+
+            afterUserId = subscriberIds.get(subscriberIds.size() - 1);
+
+        } while (subscriberIds.size() == batchSize);
+
+        versionCounters.bumpTopic(event.getTopicId());
+    }
+
+    /**
+     * Backfills the timelines of every existing subscription, once the application has started.
+     *
+     * <p>
+     * Subscriptions made while fan-out was disabled, or before this node started, have no
+     * timeline entries. Runs on the timeline executor; only the missing entries are inserted,
+     * so the backfill can run on every node and on every restart. Popular topics are skipped.
+     * </p>
+     */
+    @Async("timelineExecutor")
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillAll() {
+
+        if (!enabled || !backfillOnStartup) {
+            return;
+        }
+
+        List<Long> topicIds = topicRepository.findAllIds();
+
+        topicIds.forEach(this::backfillSubscribers);
+
+        log.info("Backfilled the timelines of {} topics", topicIds.size());
+    }
+
+    /**
+     * Backfills the timelines of a topic that an unsubscription brought back under the
+     * popularity threshold, since its articles were not fanned out while it was popular.
+     *
+     * <p>
+     * Runs on the timeline executor once the unsubscription has committed. Only the
+     * unsubscription that crosses the threshold triggers the backfill: when several
+     * concurrent ones cross it together, the topic is backfilled on the next startup.
+     * </p>
+     *
+     * @param event the event describing the subscription change
+     */
+    @Async("timelineExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSubscriptionChanged(SubscriptionChangedEvent event) {
+
+        if (!enabled || event.isSubscribed()) {
+            return;
+        }
+
+        if (userTopicRepository.countByTopicId(event.getTopicId()) == popularTopicThreshold - 1) {
+            backfillSubscribers(event.getTopicId());
+        }
+    }
+
+    /**
+     * Copies the most recent articles of a topic into a user's timeline.
+     *
+     * <p>
+     * Must be called within the subscription transaction.
+     * Does nothing when fan-out is disabled or the topic is popular.
+     * </p>
+     *
+     * @param userId  the identifier of the new subscriber
+     * @param topicId the identifier of the subscribed topic
+     */
+    public void backfill(Long userId, Long topicId) {
+
+        if (!enabled || isPopular(topicId)) {
+            return;
+        }
+
+        timelineEntryRepository.backfill(userId, topicId, backfillSize);
+    }
+
+    /**
+     * Copies the most recent articles of a topic into the timeline of each of its subscribers.
+     *
+     * <p>
+     * Subscribers are paged by identifier, each page backfilled in its own transaction.
+     * The topic is read on demand until every timeline is backfilled, then its version
+     * is bumped so that cached feed pages are refreshed. Does nothing for a popular topic.
+     * </p>
+     *
+     * @param topicId the identifier of the topic
+     */
+    private void backfillSubscribers(Long topicId) {
+
+        if (isPopular(topicId)) {
+            return;
+        }
+
+        backfillingTopicIds.add(topicId);
+
+        try {
+            Long afterUserId = 0L;
+            List<Long> subscriberIds;
+
+            do {
+                subscriberIds = userTopicRepository.findSubscriberIdsAfter(
+                        topicId,
+                        afterUserId,
+                        PageRequest.of(0, batchSize)
+                );
+
+                if (subscriberIds.isEmpty()) {
+                    break;
+                }
+
+                List<Long> page = subscriberIds;
+
+                transactionTemplate.executeWithoutResult(status -> page.forEach(userId ->
+                        timelineEntryRepository.backfill(userId, topicId, backfillSize)));
+
+                afterUserId = subscriberIds.get(subscriberIds.size() - 1);
+
+            } while (subscriberIds.size() == batchSize);
+
+        } finally {
+            backfillingTopicIds.remove(topicId);
+        }
+
+        versionCounters.bumpTopic(topicId);
+    }
+
+    /**
+     * Removes the articles of a topic from a user's timeline.
+     *
+     * <p>
+     * Must be called within the unsubscription transaction.
+     * </p>
+     *
+     * @param userId  the identifier of the user
+     * @param topicId the identifier of the topic
+     */
+    public void prune(Long userId, Long topicId) {
+
+        if (!enabled) {
+            return;
+        }
+
+        timelineEntryRepository.deleteByUserIdAndTopicId(userId, topicId);
+    }
+
+    /**
+     * Removes the articles of several topics from a user's timeline, in a single statement.
+     *
+     * <p>
+     * Must be called within the unsubscription transaction.
+     * </p>
+     *
+     * @param userId   the identifier of the user
+     * @param topicIds the identifiers of the topics
+     */
+    public void prune(Long userId, Collection<Long> topicIds) {
+
+        if (!enabled || topicIds.isEmpty()) {
+            return;
+        }
+
+        timelineEntryRepository.deleteByUserIdAndTopicIdIn(userId, topicIds);
+    }
+
+    /**
+     * Reads up to {@code limit} feed articles located strictly after a cursor.
+     *
+     * <p>
+     * The method:
+     * <ol>
+     *     <li>Range-scans the user's precomputed timeline</li>
+     *     <li>Reads the subscribed popular topics, and those being backfilled, directly
+     *     from the articles table</li>
+     *     <li>Merges both sources by creation date then identifier (descending)</li>
+     *     <li>Loads the selected timeline articles in a single primary-key lookup</li>
+     * </ol>
+     * </p>
+     *
+     * @param userId   the identifier of the user
+     * @param topicIds the identifiers of the topics the user is subscribed to
+     * @param after    the cursor to start after, or {@code null} for the first page
+     * @param limit    the maximum number of articles to return
+     * @return the articles ordered from most recent to oldest
+     */
+    public List<ArticleSummaryDto> findFeedArticles(Long userId,
+                                          Collection<Long> topicIds,
+                                          FeedCursor after,
+                                          int limit) {
+
+        PageRequest page = PageRequest.of(0, limit);
+
+        List<TimelineEntry> entries = after == null
+                ? timelineEntryRepository.findFirstPage(userId, page)
+                : timelineEntryRepository.findPageAfter(
+                        userId, after.getCreatedAt(), after.getId(), page);
+
+        List<FeedCursor> keys = new ArrayList<>();
+
+        entries.forEach(entry ->
+                keys.add(new FeedCursor(entry.getCreatedAt(), entry.getArticleId())));
+
+        List<Long> popularTopicIds = new ArrayList<>(
+                userTopicRepository.findTopicIdsWithMinSubscribers(topicIds, popularTopicThreshold));
+
+        if (!backfillingTopicIds.isEmpty()) {
+            topicIds.stream()
+                    .filter(backfillingTopicIds::contains)
+                    .filter(topicId -> !popularTopicIds.contains(topicId))
+                    .forEach(popularTopicIds::add);
+        }
+
+        Map<Long, ArticleSummaryDto> loaded = new HashMap<>();
+
+        if (!popularTopicIds.isEmpty()) {
+
+            List<ArticleSummaryDto> popularArticles = after == null
+                    ? articleRepository.findFeedFirstPage(popularTopicIds, page)
+                    : articleRepository.findFeedPageAfter(
+                            popularTopicIds, after.getCreatedAt(), after.getId(), page);
+
+            popularArticles.forEach(article -> {
+                keys.add(new FeedCursor(article.getCreatedAt(), article.getId()));
+                loaded.put(article.getId(), article);
+            });
+        }
+
+        List<Long> articleIds = keys.stream()
+                .sorted(Comparator.comparing(FeedCursor::getCreatedAt)
+                        .thenComparing(FeedCursor::getId)
+                        .reversed())
+                .map(FeedCursor::getId)
+                .distinct()
+                .limit(limit)
+                .toList();
+
+        List<Long> missingIds = articleIds.stream()
+                .filter(id -> !loaded.containsKey(id))
+                .toList();
+
+        if (!missingIds.isEmpty()) {
+            loaded.putAll(articleRepository.findSummariesByIdIn(missingIds)
+                    .stream()
+                    .collect(Collectors.toMap(ArticleSummaryDto::getId, Function.identity())));
+        }
+
+        return articleIds.stream()
+                .map(loaded::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Indicates whether a topic has too many subscribers to be fanned out.
+     *
+     * @param topicId the identifier of the topic
+     * @return {@code true} if the topic is read on demand
+     */
+    private boolean isPopular(Long topicId) {
+        return userTopicRepository.countByTopicId(topicId) >= popularTopicThreshold;
+    }
+}
@@ -1,19 +1,22 @@
 package com.openclassrooms.mddapi.service;
 
+import com.openclassrooms.mddapi.cache.SubscriptionIndex;
+import com.openclassrooms.mddapi.cache.TopicCatalog;
+import com.openclassrooms.mddapi.cache.TopicStatsCounters;
+import com.openclassrooms.mddapi.cache.VersionCounters;
 import com.openclassrooms.mddapi.dto.TopicDto;
+import com.openclassrooms.mddapi.dto.TopicStatsDto;
+import com.openclassrooms.mddapi.event.TopicCreatedEvent;
 import com.openclassrooms.mddapi.mapper.TopicMapper;
 import com.openclassrooms.mddapi.model.Topic;
-import com.openclassrooms.mddapi.model.UserTopic;
 import com.openclassrooms.mddapi.payload.request.TopicRequest;
 import com.openclassrooms.mddapi.payload.response.TopicResponse;
 import com.openclassrooms.mddapi.repository.TopicRepository;
 import com.openclassrooms.mddapi.repository.UserRepository;
-import com.openclassrooms.mddapi.repository.UserTopicRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Service responsible for managing topic-related business logic.
@@ -26,33 +29,54 @@ import java.util.stream.Collectors;
  *     <li>Retrieving topics along with user subscription status</li>
  * </ul>
  * </p>
+ *
+ * <p>
+ * Topics are read from the in-memory {@link TopicCatalog}, which is updated
+ * when a topic creation commits: listing topics runs no topics query.
+ * </p>
  */
 @Service
 public class TopicService {
 
     private final TopicRepository topicRepository;
-    private final UserTopicRepository userTopicRepository;
+    private final SubscriptionIndex subscriptionIndex;
     private final UserRepository userRepository;
     private final TopicMapper topicMapper;
+    private final VersionCounters versionCounters;
+    private final TopicCatalog topicCatalog;
+    private final TopicStatsCounters topicStatsCounters;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Constructs a {@link TopicService} with required dependencies.
      *
      * @param topicRepository     repository for topic persistence
      * @param topicMapper         mapper used to convert between entities and DTOs
-     * @param userTopicRepository repository managing user-topic associations
+     * @param subscriptionIndex   in-memory index of the topics each user is subscribed to
      * @param userRepository      repository for user persistence
+     * @param versionCounters     version counters used to build entity tags
+     * @param topicCatalog        in-memory snapshot of the topic catalog
+     * @param topicStatsCounters  incrementally maintained statistics of each topic
+     * @param eventPublisher      publisher of topic creation events
      */
     public TopicService(
             TopicRepository topicRepository,
             TopicMapper topicMapper,
-            UserTopicRepository userTopicRepository,
-            UserRepository userRepository
+            SubscriptionIndex subscriptionIndex,
+            UserRepository userRepository,
+            VersionCounters versionCounters,
+            TopicCatalog topicCatalog,
+            TopicStatsCounters topicStatsCounters,
+            ApplicationEventPublisher eventPublisher
     ) {
         this.topicRepository = topicRepository;
-        this.userTopicRepository = userTopicRepository;
+        this.subscriptionIndex = subscriptionIndex;
         this.userRepository = userRepository;
         this.topicMapper = topicMapper;
+        this.versionCounters = versionCounters;
+        this.topicCatalog = topicCatalog;
+        this.topicStatsCounters = topicStatsCounters;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -61,7 +85,7 @@ public class TopicService {
      * @return a list of {@link TopicDto} representing all topics in the system
      */
     public List<TopicDto> getAllTopics() {
-        return topicMapper.toDtoList(topicRepository.findAll());
+        return topicCatalog.getTopics();
     }
 
     /**
@@ -73,6 +97,8 @@ public class TopicService {
      *     <li>Checks if a topic with the same name already exists</li>
      *     <li>Maps the request to a {@link Topic} entity</li>
      *     <li>Persists the topic</li>
+     *     <li>Publishes a {@link TopicCreatedEvent} updating the in-memory catalog, which
+     *     then bumps the version of the catalog</li>
      *     <li>Returns a DTO representation</li>
      * </ol>
      * </p>
@@ -90,43 +116,97 @@ public class TopicService {
         Topic topic = topicMapper.toEntity(request);
         topicRepository.save(topic);
 
+        eventPublisher.publishEvent(new TopicCreatedEvent(
+                topic.getId(),
+                topic.getName(),
+                topic.getDescription()
+        ));
+
         return topicMapper.toDto(topic);
     }
 
     /**
-     * Retrieves all topics along with the subscription status for a specific user.
+     * Computes the entity tag of the topic list of a user.
      *
      * <p>
-     * The method:
-     * <ol>
-     *     <li>Retrieves all topic subscriptions for the user</li>
-     *     <li>Extracts subscribed topic identifiers</li>
-     *     <li>Retrieves all topics from the database</li>
-     *     <li>Builds a {@link TopicResponse} including a boolean flag indicating
-     *     whether the user is subscribed</li>
-     * </ol>
+     * The tag changes when a topic is created or when the user's subscriptions change.
+     * Statistics are not part of the list, so activity on a topic leaves it unchanged.
      * </p>
      *
      * @param userID the identifier of the user
-     * @return a list of {@link TopicResponse} containing topic information
-     *         and subscription status
+     * @return the strong entity tag of the topic list
      */
-    public List<TopicResponse> getAllTopicsWithSubscription(Long userID) {
+    public String getTopicsETag(Long userID) {
+        return versionCounters.etag(
+                userID,
+                versionCounters.catalogVersion(),
+                versionCounters.subscriptionsVersion(userID)
+        );
+    }
 
-        List<UserTopic> userTopics = userTopicRepository.findByUserId(userID);
+    /**
+     * Writes all topics, along with the subscription status of a user,
+     * as a JSON array of {@link TopicResponse}.
+     *
+     * <p>
+     * The JSON is assembled from the fragments pre-serialized in the catalog snapshot,
+     * only the subscription flags being written per request.
+     * </p>
+     *
+     * @param userID the identifier of the user
+     * @return the UTF-8 encoded JSON array of {@link TopicResponse}
+     */
+    public byte[] getAllTopicsWithSubscriptionJson(Long userID) {
+        return topicCatalog.toJson(subscriptionIndex.getTopicIds(userID));
+    }
 
-        Set<Long> subscribedTopicIds = userTopics.stream()
-                .map(ut -> ut.getTopic().getId())
-                .collect(Collectors.toSet());
+    /**
+     * Computes the entity tag of the statistics of every topic.
+     *
+     * <p>
+     * The tag is shared by every user and changes when a topic is created
+     * or when the statistics of a topic change.
+     * </p>
+     *
+     * @return the strong entity tag of the statistics
+     */
+    public String getTopicStatsETag() {
+        return versionCounters.etag(
+                versionCounters.catalogVersion(),
+                topicStatsCounters.version()
+        );
+    }
 
-        return topicRepository.findAll()
+    /**
+     * Retrieves the statistics of every topic, ordered by topic identifier.
+     *
+     * @return the list of {@link TopicStatsDto}
+     */
+    public List<TopicStatsDto> getAllTopicStats() {
+        return topicCatalog.getTopics()
                 .stream()
-                .map(topic -> new TopicResponse(
-                        topic.getId(),
-                        topic.getName(),
-                        topic.getDescription(),
-                        subscribedTopicIds.contains(topic.getId())
-                ))
+                .map(topic -> topicStatsCounters.get(topic.getId()))
                 .toList();
     }
+
+    /**
+     * Retrieves the statistics of a topic.
+     *
+     * <p>
+     * Statistics are maintained in memory as subscriptions, articles and comments
+     * are committed: no count is computed by this method.
+     * </p>
+     *
+     * @param topicId the identifier of the topic
+     * @return the {@link TopicStatsDto} of the topic
+     * @throws RuntimeException if the topic does not exist
+     */
+    public TopicStatsDto getTopicStats(Long topicId) {
+
+        if (topicCatalog.getTopics(new long[]{topicId}).isEmpty()) {
+            throw new RuntimeException("Topic not found");
+        }
+
+        return topicStatsCounters.get(topicId);
+    }
 }
\ No newline at end of file
@@ -1,13 +1,15 @@
 package com.openclassrooms.mddapi.service;
 
+import com.openclassrooms.mddapi.cache.PrincipalCache;
+import com.openclassrooms.mddapi.cache.VersionCounters;
 import com.openclassrooms.mddapi.dto.UserDto;
 import com.openclassrooms.mddapi.mapper.UserMapper;
 import com.openclassrooms.mddapi.model.User;
 import com.openclassrooms.mddapi.payload.request.UpdateUserRequest;
 import com.openclassrooms.mddapi.payload.response.UserResponse;
 import com.openclassrooms.mddapi.repository.UserRepository;
+import com.openclassrooms.mddapi.security.PasswordHashingService;
 
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 /**
@@ -22,25 +24,37 @@ import org.springframework.stereotype.Service;
  * </p>
  *
  * <p>
- * Password updates are securely handled using {@link PasswordEncoder}.
+ * Password updates are securely handled using {@link PasswordHashingService}.
  * </p>
  */
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final VersionCounters versionCounters;
+    private final PrincipalCache principalCache;
+    private final RefreshTokenService refreshTokenService;
 
     /**
      * Constructs a {@link UserService} with required dependencies.
      *
-     * @param userRepository repository used for user persistence
-     * @param passwordEncoder component used for secure password hashing
+     * @param userRepository         repository used for user persistence
+     * @param passwordHashingService service used for secure password hashing
+     * @param versionCounters        version counters used to build entity tags
+     * @param principalCache         cache of authenticated principals
+     * @param refreshTokenService    service used to revoke sessions on password change
      */
     public UserService(UserRepository userRepository,
-                       PasswordEncoder passwordEncoder) {
+                       PasswordHashingService passwordHashingService,
+                       VersionCounters versionCounters,
+                       PrincipalCache principalCache,
+                       RefreshTokenService refreshTokenService) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
+        this.versionCounters = versionCounters;
+        this.principalCache = principalCache;
+        this.refreshTokenService = refreshTokenService;
     }
 
     /**
@@ -75,7 +89,12 @@ public class UserService {
      *     <li>Validates the existence of the user</li>
      *     <li>Updates only non-null and non-blank fields</li>
      *     <li>Encodes the password if it is provided</li>
+     *     <li>Increments the credentials version when the username, email or password changes</li>
      *     <li>Persists the updated user</li>
+     *     <li>Revokes every other session of the user when the password changes: the session
+     *     making the change stays open, so the client keeps its tokens</li>
+     *     <li>Evicts the cached principal of the user when their credentials version changes</li>
+     *     <li>Bumps the profiles version when the displayed username changes</li>
      * </ol>
      * </p>
      *
@@ -83,30 +102,56 @@ public class UserService {
      * Fields that are null or blank are ignored and remain unchanged.
      * </p>
      *
-     * @param userId  the identifier of the user to update
-     * @param request the request containing updated user information
+     * @param userId    the identifier of the user to update
+     * @param sessionId the identifier of the session making the change, kept open on a
+     *                  password change; {@code null} revokes every session
+     * @param request   the request containing updated user information
      * @return a {@link UserResponse} representing the updated user
      * @throws RuntimeException if the user does not exist
      */
-    public UserResponse updateUser(Long userId, UpdateUserRequest request) {
+    public UserResponse updateUser(Long userId, String sessionId, UpdateUserRequest request) {
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
+        boolean usernameChanged = false;
+        boolean credentialsChanged = false;
+        boolean passwordChanged = false;
+
         if (request.getUsername() != null && !request.getUsername().isBlank()) {
+            usernameChanged = !request.getUsername().equals(user.getUsername());
             user.setUsername(request.getUsername());
         }
 
         if (request.getEmail() != null && !request.getEmail().isBlank()) {
+            credentialsChanged = !request.getEmail().equals(user.getEmail());
             user.setEmail(request.getEmail());
         }
 
         if (request.getPassword() != null && !request.getPassword().isBlank()) {
-            user.setPassword(passwordEncoder.encode(request.getPassword()));
+            credentialsChanged = true;
+            passwordChanged = true;
+            user.setPassword(passwordHashingService.encode(request.getPassword()));
+        }
+
+        if (usernameChanged || credentialsChanged) {
+            user.setVersion(user.getVersion() + 1);
         }
 
         userRepository.save(user);
 
+        if (passwordChanged) {
+            refreshTokenService.revokeAllExcept(userId, sessionId);
+        }
+
+        if (usernameChanged || credentialsChanged) {
+            principalCache.invalidate(userId);
+        }
+
+        if (usernameChanged) {
+            versionCounters.bumpProfiles();
+        }
+
         return UserMapper.toResponse(user);
     }
 }
\ No newline at end of file
@@ -0,0 +1,55 @@
+-- Original schema, as created by Hibernate (ddl-auto=update) from the first entities.
+--
+-- Existing databases already have it: they are baselined at this version
+-- (spring.flyway.baseline-on-migrate) and only run the following migrations.
+-- Tables and columns added later are created by those migrations, which skip
+-- what Hibernate may already have added to a database.
+
+CREATE TABLE users (
+    id       BIGINT       NOT NULL AUTO_INCREMENT,
+    email    VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    username VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email)
+) ENGINE = InnoDB;
+
+CREATE TABLE topics (
+    id          BIGINT        NOT NULL AUTO_INCREMENT,
+    name        VARCHAR(100)  NOT NULL,
+    description VARCHAR(1000) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_topics_name UNIQUE (name)
+) ENGINE = InnoDB;
+
+CREATE TABLE articles (
+    id         BIGINT        NOT NULL AUTO_INCREMENT,
+    title      VARCHAR(255)  NOT NULL,
+    content    VARCHAR(5000) NOT NULL,
+    created_at DATETIME(6)   NOT NULL,
+    author_id  BIGINT        NOT NULL,
+    topic_id   BIGINT        NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_articles_author FOREIGN KEY (author_id) REFERENCES users (id),
+    CONSTRAINT fk_articles_topic FOREIGN KEY (topic_id) REFERENCES topics (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE comments (
+    id         INTEGER      NOT NULL AUTO_INCREMENT,
+    content    VARCHAR(255) NOT NULL,
+    created_at DATETIME(6),
+    article_id BIGINT       NOT NULL,
+    author_id  BIGINT       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_comments_article FOREIGN KEY (article_id) REFERENCES articles (id),
+    CONSTRAINT fk_comments_author FOREIGN KEY (author_id) REFERENCES users (id)
+) ENGINE = InnoDB;
+
+CREATE TABLE users_topics (
+    id       BIGINT NOT NULL AUTO_INCREMENT,
+    user_id  BIGINT NOT NULL,
+    topic_id BIGINT NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT fk_users_topics_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_users_topics_topic FOREIGN KEY (topic_id) REFERENCES topics (id)
+) ENGINE = InnoDB;
@@ -0,0 +1,32 @@
+-- Identifiers of articles, comments, topics and users are assigned by blocks from
+-- the id_generators table (see PooledIdGenerator) instead of AUTO_INCREMENT columns,
+-- so that Hibernate can batch their inserts.
+--
+-- Each segment holds the next identifier to hand out (the generator uses the pooled-lo
+-- optimizer), so it is seeded with the highest identifier in use plus one. Must run
+-- while no application node is writing. Running it again is harmless.
+
+-- Comment identifiers were 32-bit integers.
+ALTER TABLE comments MODIFY id BIGINT NOT NULL AUTO_INCREMENT;
+
+CREATE TABLE IF NOT EXISTS id_generators (
+    segment_name VARCHAR(255) NOT NULL,
+    next_val     BIGINT,
+    PRIMARY KEY (segment_name)
+);
+
+INSERT INTO id_generators (segment_name, next_val)
+SELECT 'articles', COALESCE(MAX(id), 0) + 1 FROM articles
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
+
+INSERT INTO id_generators (segment_name, next_val)
+SELECT 'comments', COALESCE(MAX(id), 0) + 1 FROM comments
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
+
+INSERT INTO id_generators (segment_name, next_val)
+SELECT 'topics', COALESCE(MAX(id), 0) + 1 FROM topics
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
+
+INSERT INTO id_generators (segment_name, next_val)
+SELECT 'users', COALESCE(MAX(id), 0) + 1 FROM users
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
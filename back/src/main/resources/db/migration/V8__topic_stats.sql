@@ -0,0 +1,32 @@
+-- Persisted statistics of each topic, maintained incrementally by TopicStatsCounters
+-- and periodically recounted from the source tables.
+
+CREATE TABLE IF NOT EXISTS topic_stats (
+    topic_id         BIGINT      NOT NULL,
+    subscriber_count BIGINT      NOT NULL,
+    article_count    BIGINT      NOT NULL,
+    last_activity_at DATETIME(6),
+    PRIMARY KEY (topic_id)
+) ENGINE = InnoDB;
+
+-- Existing topics start from their current counts: the counters only add changes to
+-- the persisted rows, and a topic without a row is taken to be new.
+INSERT INTO topic_stats (topic_id, subscriber_count, article_count, last_activity_at)
+SELECT counts.id,
+       counts.subscriber_count,
+       counts.article_count,
+       COALESCE(GREATEST(counts.last_article_at, counts.last_comment_at),
+                counts.last_article_at,
+                counts.last_comment_at)
+FROM (
+    SELECT t.id,
+           (SELECT COUNT(*) FROM users_topics ut WHERE ut.topic_id = t.id) AS subscriber_count,
+           (SELECT COUNT(*) FROM articles a WHERE a.topic_id = t.id) AS article_count,
+           (SELECT MAX(a.created_at) FROM articles a WHERE a.topic_id = t.id) AS last_article_at,
+           (SELECT MAX(c.created_at)
+            FROM comments c
+            JOIN articles ca ON ca.id = c.article_id
+            WHERE ca.topic_id = t.id) AS last_comment_at
+    FROM topics t
+) counts
+WHERE NOT EXISTS (SELECT 1 FROM topic_stats s WHERE s.topic_id = counts.id);
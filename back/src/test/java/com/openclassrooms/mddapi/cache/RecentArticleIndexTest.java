@@ -0,0 +1,133 @@
+package com.openclassrooms.mddapi.cache;
+
+import com.openclassrooms.mddapi.dto.ArticleSummaryDto;
+import com.openclassrooms.mddapi.event.ArticleCreatedEvent;
+import com.openclassrooms.mddapi.repository.ArticleRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the merge of the rings of the {@link RecentArticleIndex}, loaded from a mocked repository.
+ */
+class RecentArticleIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final ArticleRepository articleRepository = mock(ArticleRepository.class);
+
+    @Test
+    void mergesTopicsNewestFirst() {
+
+        // Articles are loaded newest first, as the repository returns them.
+        articles(1L, article(3L, 30), article(1L, 10));
+        articles(2L, article(4L, 40), article(2L, 20));
+        RecentArticleIndex index = index(10);
+
+        assertArrayEquals(new long[]{4, 3, 2}, index.findMostRecent(List.of(1L, 2L), 3));
+        assertArrayEquals(new long[]{4, 3, 2, 1}, index.findMostRecent(List.of(1L, 2L), 10));
+    }
+
+    @Test
+    void breaksTimestampTiesByIdentifier() {
+
+        articles(1L, article(5L, 10));
+        articles(2L, article(6L, 10));
+        RecentArticleIndex index = index(10);
+
+        assertArrayEquals(new long[]{6, 5}, index.findMostRecent(List.of(1L, 2L), 2));
+    }
+
+    @Test
+    void keepsTheRingSortedWhenCommitsArriveOutOfOrder() {
+
+        articles(1L, article(1L, 10));
+        RecentArticleIndex index = index(10);
+
+        // Loads the ring, so that the events below update it.
+        index.findMostRecent(List.of(1L), 1);
+
+        index.onArticleCreated(created(3L, 30));
+        index.onArticleCreated(created(2L, 20));
+        // Redelivered event: already in the ring.
+        index.onArticleCreated(created(3L, 30));
+
+        assertArrayEquals(new long[]{3, 2, 1}, index.findMostRecent(List.of(1L), 10));
+    }
+
+    @Test
+    void evictsTheOldestArticleOnceFull() {
+
+        articles(1L, article(2L, 20), article(1L, 10));
+        RecentArticleIndex index = index(2);
+
+        index.findMostRecent(List.of(1L), 1);
+        index.onArticleCreated(created(3L, 30));
+
+        assertArrayEquals(new long[]{3, 2}, index.findMostRecent(List.of(1L), 2));
+    }
+
+    @Test
+    void answersFromATruncatedRingUpToItsLastArticle() {
+
+        // Topic 1 fills its ring: older articles may exist in the database.
+        articles(1L, article(4L, 40), article(3L, 30));
+        articles(2L, article(1L, 10));
+        RecentArticleIndex index = index(2);
+
+        // Reaching the end of the truncated ring with the last requested article is fine.
+        assertArrayEquals(new long[]{4, 3}, index.findMostRecent(List.of(1L, 2L), 2));
+    }
+
+    @Test
+    void givesUpPastTheEndOfATruncatedRing() {
+
+        // Topic 1 fills its ring, then loses its oldest article.
+        articles(1L, article(2L, 20), article(1L, 10));
+        articles(2L, article(5L, 5));
+        RecentArticleIndex index = index(2);
+
+        index.findMostRecent(List.of(1L, 2L), 1);
+        index.onArticleCreated(created(3L, 30));
+
+        assertArrayEquals(new long[]{3, 2}, index.findMostRecent(List.of(1L, 2L), 2));
+        // The next article may be article 1, no longer in memory, rather than article 5.
+        assertNull(index.findMostRecent(List.of(1L, 2L), 3));
+    }
+
+    private RecentArticleIndex index(int capacity) {
+        return new RecentArticleIndex(
+                articleRepository,
+                new VersionCounters(),
+                mock(PlatformTransactionManager.class),
+                true,
+                capacity
+        );
+    }
+
+    private void articles(Long topicId, ArticleSummaryDto... articles) {
+        when(articleRepository.findFeedFirstPage(eq(List.of(topicId)), any()))
+                .thenReturn(Arrays.asList(articles));
+    }
+
+    private static ArticleSummaryDto article(Long id, int minutes) {
+        ArticleSummaryDto article = new ArticleSummaryDto();
+        article.setId(id);
+        article.setCreatedAt(BASE.plusMinutes(minutes));
+        return article;
+    }
+
+    private static ArticleCreatedEvent created(Long id, int minutes) {
+        return new ArticleCreatedEvent(id, 1L, 1L, BASE.plusMinutes(minutes));
+    }
+}
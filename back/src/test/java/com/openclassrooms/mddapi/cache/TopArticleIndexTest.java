@@ -0,0 +1,136 @@
+package com.openclassrooms.mddapi.cache;
+
+import com.openclassrooms.mddapi.dto.ArticleActivityDto;
+import com.openclassrooms.mddapi.event.ArticleCreatedEvent;
+import com.openclassrooms.mddapi.event.CommentCreatedEvent;
+import com.openclassrooms.mddapi.repository.ArticleRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the rankings of the {@link TopArticleIndex}, loaded from a mocked repository.
+ */
+class TopArticleIndexTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private final ArticleRepository articleRepository = mock(ArticleRepository.class);
+
+    @Test
+    void ranksCommentsAgainstAge() {
+
+        // One hour of age weighs far less than three comments with a one-day half-life.
+        activity(1L, article(1L, NOW.minusHours(1), 0));
+        activity(2L, article(2L, NOW.minusHours(2), 3));
+        TopArticleIndex index = index(10, 24);
+
+        assertArrayEquals(new long[]{2, 1}, index.findTop(List.of(1L, 2L), 10));
+        assertArrayEquals(new long[]{2}, index.findTop(List.of(1L, 2L), 1));
+    }
+
+    @Test
+    void ranksACommentedArticleOutsideOfTheBestWithoutQuerying() {
+
+        activity(1L, article(1L, NOW.minusHours(1), 0), article(2L, NOW.minusHours(2), 0));
+        TopArticleIndex index = index(1, 24);
+
+        assertArrayEquals(new long[]{1}, index.findTop(List.of(1L), 10));
+        long version = index.version(1L);
+
+        index.onCommentCreated(comment(2L));
+
+        assertArrayEquals(new long[]{2}, index.findTop(List.of(1L), 10));
+        assertNotEquals(version, index.version(1L));
+        verify(articleRepository, times(1)).findActivitySince(anyLong(), any());
+    }
+
+    @Test
+    void keepsOnlyTheBestArticlesPerTopic() {
+
+        activity(1L, article(1L, NOW.minusHours(2), 0));
+        TopArticleIndex index = index(1, 24);
+
+        index.findTop(List.of(1L), 1);
+        long version = index.version(1L);
+
+        // Older than the ranked article, with no comment: not ranked.
+        index.onArticleCreated(new ArticleCreatedEvent(2L, 1L, 1L, NOW.minusHours(3)));
+        assertEquals(version, index.version(1L));
+
+        // Newer: replaces the ranked article.
+        index.onArticleCreated(new ArticleCreatedEvent(3L, 1L, 1L, NOW.minusHours(1)));
+        assertNotEquals(version, index.version(1L));
+        assertArrayEquals(new long[]{3}, index.findTop(List.of(1L), 10));
+    }
+
+    @Test
+    void ignoresCommentsOnArticlesOutsideOfTheWindow() {
+
+        activity(1L, article(1L, NOW.minusHours(1), 0));
+        TopArticleIndex index = index(1, 24);
+
+        index.findTop(List.of(1L), 1);
+        long version = index.version(1L);
+
+        index.onCommentCreated(comment(99L));
+
+        assertEquals(version, index.version(1L));
+        assertArrayEquals(new long[]{1}, index.findTop(List.of(1L), 10));
+    }
+
+    @Test
+    void forgetsUnrankedArticlesThatLeftTheWindow() {
+
+        // With a very long half-life, a single comment outweighs any age difference.
+        activity(1L, article(1L, NOW.minusHours(1), 0), article(2L, NOW.minusDays(8), 0));
+        TopArticleIndex kept = index(1, 1_000_000);
+        TopArticleIndex evicted = index(1, 1_000_000);
+
+        kept.findTop(List.of(1L), 1);
+        evicted.findTop(List.of(1L), 1);
+        evicted.evictExpired();
+
+        kept.onCommentCreated(comment(2L));
+        evicted.onCommentCreated(comment(2L));
+
+        assertArrayEquals(new long[]{2}, kept.findTop(List.of(1L), 10));
+        assertArrayEquals(new long[]{1}, evicted.findTop(List.of(1L), 10));
+    }
+
+    private TopArticleIndex index(int perTopic, double halfLifeHours) {
+        return new TopArticleIndex(
+                articleRepository,
+                mock(PlatformTransactionManager.class),
+                perTopic,
+                7,
+                halfLifeHours
+        );
+    }
+
+    private void activity(Long topicId, ArticleActivityDto... articles) {
+        when(articleRepository.findActivitySince(eq(topicId), any()))
+                .thenReturn(List.of(articles));
+    }
+
+    private static ArticleActivityDto article(Long id, LocalDateTime createdAt, long comments) {
+        return new ArticleActivityDto(id, createdAt, comments);
+    }
+
+    private static CommentCreatedEvent comment(Long articleId) {
+        return new CommentCreatedEvent(articleId, 1L, 1L, NOW, NOW);
+    }
+}
@@ -0,0 +1,254 @@
+package com.openclassrooms.mddapi.cache;
+
+import com.openclassrooms.mddapi.dto.TopicStatsDto;
+import com.openclassrooms.mddapi.event.ArticleCreatedEvent;
+import com.openclassrooms.mddapi.event.CommentCreatedEvent;
+import com.openclassrooms.mddapi.event.SubscriptionChangedEvent;
+import com.openclassrooms.mddapi.model.TopicStats;
+import com.openclassrooms.mddapi.repository.TopicStatsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks how the {@link TopicStatsCounters} flush their changes and rebase on the
+ * {@code topic_stats} table, simulated by a map behind a mocked repository.
+ */
+class TopicStatsCountersTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private final TopicStatsRepository repository = mock(TopicStatsRepository.class);
+
+    /**
+     * Rows of the simulated table, by topic identifier.
+     */
+    private final Map<Long, TopicStats> table = new TreeMap<>();
+
+    /**
+     * Result of the next recount.
+     */
+    private final List<TopicStatsDto> recount = new ArrayList<>();
+
+    private final AtomicBoolean failNextWrite = new AtomicBoolean();
+
+    private Runnable duringRecount = () -> { };
+
+    private TopicStatsCounters counters;
+
+    @BeforeEach
+    void simulateTable() {
+
+        when(repository.findAll()).thenAnswer(invocation -> table.values().stream()
+                .map(row -> new TopicStats(row.getTopicId(), row.getSubscriberCount(),
+                        row.getArticleCount(), row.getLastActivityAt()))
+                .toList());
+
+        when(repository.addCounts(anyLong(), anyLong(), anyLong())).thenAnswer(invocation -> {
+
+            if (failNextWrite.getAndSet(false)) {
+                throw new QueryTimeoutException("Lock wait timeout");
+            }
+
+            TopicStats row = table.get(invocation.<Long>getArgument(0));
+
+            if (row == null) {
+                return 0;
+            }
+
+            row.setSubscriberCount(row.getSubscriberCount() + invocation.<Long>getArgument(1));
+            row.setArticleCount(row.getArticleCount() + invocation.<Long>getArgument(2));
+            return 1;
+        });
+
+        when(repository.advanceLastActivity(anyLong(), any())).thenAnswer(invocation -> {
+            TopicStats row = table.get(invocation.<Long>getArgument(0));
+            LocalDateTime at = invocation.getArgument(1);
+            if (row.getLastActivityAt() == null || row.getLastActivityAt().isBefore(at)) {
+                row.setLastActivityAt(at);
+            }
+            return 1;
+        });
+
+        when(repository.save(any())).thenAnswer(invocation -> put(invocation.getArgument(0)));
+
+        when(repository.countAll()).thenAnswer(invocation -> {
+            duringRecount.run();
+            return recount;
+        });
+
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<TopicStats> rows = invocation.getArgument(0);
+            rows.forEach(this::put);
+            return rows;
+        });
+
+        counters = new TopicStatsCounters(repository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+
+    @Test
+    void loadsThePersistedStatistics() {
+
+        put(new TopicStats(1L, 5, 2, T0));
+        counters.load();
+
+        assertStats(5, 2, T0, counters.get(1L));
+        assertStats(0, 0, null, counters.get(2L));
+    }
+
+    @Test
+    void flushAddsTheChangesOnce() {
+
+        put(new TopicStats(1L, 5, 2, T0));
+        counters.load();
+        long version = counters.version();
+
+        counters.onSubscriptionChanged(subscribed(1L, true));
+        counters.onSubscriptionChanged(subscribed(1L, true));
+        counters.onArticleCreated(article(1L, T0.plusHours(1)));
+
+        assertNotEquals(version, counters.version());
+        assertStats(7, 3, T0.plusHours(1), counters.get(1L));
+
+        counters.flush();
+        counters.flush();
+
+        assertRow(7, 3, T0.plusHours(1), table.get(1L));
+        assertStats(7, 3, T0.plusHours(1), counters.get(1L));
+    }
+
+    @Test
+    void picksUpTheChangesFlushedByOtherNodes() {
+
+        put(new TopicStats(1L, 5, 2, T0));
+        counters.load();
+
+        counters.onSubscriptionChanged(subscribed(1L, true));
+        // Flushed meanwhile by another node.
+        table.get(1L).setSubscriberCount(15);
+        table.get(1L).setLastActivityAt(T0.plusHours(2));
+
+        counters.flush();
+
+        assertRow(16, 2, T0.plusHours(2), table.get(1L));
+        assertStats(16, 2, T0.plusHours(2), counters.get(1L));
+    }
+
+    @Test
+    void retriesAFailedFlushWithTheSameChanges() {
+
+        put(new TopicStats(1L, 5, 2, T0));
+        counters.load();
+
+        counters.onSubscriptionChanged(subscribed(1L, false));
+        failNextWrite.set(true);
+
+        assertThrows(QueryTimeoutException.class, counters::flush);
+        assertRow(5, 2, T0, table.get(1L));
+
+        counters.flush();
+
+        assertRow(4, 2, T0, table.get(1L));
+        assertStats(4, 2, T0, counters.get(1L));
+    }
+
+    @Test
+    void insertsTheRowOfANewTopic() {
+
+        counters.onArticleCreated(article(3L, T0));
+        counters.onCommentCreated(comment(3L, T0.plusMinutes(5)));
+
+        counters.flush();
+
+        assertRow(0, 1, T0.plusMinutes(5), table.get(3L));
+        assertStats(0, 1, T0.plusMinutes(5), counters.get(3L));
+    }
+
+    @Test
+    void recountOverwritesTheTableAndKeepsLaterChangesPending() {
+
+        put(new TopicStats(1L, 5, 2, T0));
+        counters.load();
+
+        // Flushed by the recount before counting, so included in the recount.
+        counters.onSubscriptionChanged(subscribed(1L, true));
+        recount.add(new TopicStatsDto(1L, 20, 3, T0.plusHours(1)));
+        // Committed while the recount reads: not part of it.
+        duringRecount = () -> counters.onSubscriptionChanged(subscribed(1L, true));
+
+        counters.recount();
+
+        assertRow(20, 3, T0.plusHours(1), table.get(1L));
+        assertStats(21, 3, T0.plusHours(1), counters.get(1L));
+
+        duringRecount = () -> { };
+        counters.flush();
+
+        assertRow(21, 3, T0.plusHours(1), table.get(1L));
+        assertStats(21, 3, T0.plusHours(1), counters.get(1L));
+    }
+
+    @Test
+    void flushWithoutChangesDoesNotWrite() {
+
+        put(new TopicStats(1L, 5, 2, T0));
+        counters.load();
+
+        counters.flush();
+
+        verify(repository, never()).addCounts(anyLong(), anyLong(), anyLong());
+    }
+
+    private TopicStats put(TopicStats row) {
+        table.put(row.getTopicId(), new TopicStats(row.getTopicId(), row.getSubscriberCount(),
+                row.getArticleCount(), row.getLastActivityAt()));
+        return row;
+    }
+
+    private static SubscriptionChangedEvent subscribed(Long topicId, boolean subscribed) {
+        return new SubscriptionChangedEvent(1L, topicId, subscribed);
+    }
+
+    private static ArticleCreatedEvent article(Long topicId, LocalDateTime at) {
+        return new ArticleCreatedEvent(1L, topicId, 1L, at);
+    }
+
+    private static CommentCreatedEvent comment(Long topicId, LocalDateTime at) {
+        return new CommentCreatedEvent(1L, topicId, 1L, at, at);
+    }
+
+    private static void assertStats(long subscribers, long articles, LocalDateTime lastActivityAt,
+                                    TopicStatsDto stats) {
+        assertEquals(subscribers, stats.getSubscriberCount());
+        assertEquals(articles, stats.getArticleCount());
+        assertEquals(lastActivityAt, stats.getLastActivityAt());
+    }
+
+    private static void assertRow(long subscribers, long articles, LocalDateTime lastActivityAt,
+                                  TopicStats row) {
+        assertEquals(subscribers, row.getSubscriberCount());
+        assertEquals(articles, row.getArticleCount());
+        assertEquals(lastActivityAt, row.getLastActivityAt());
+    }
+}
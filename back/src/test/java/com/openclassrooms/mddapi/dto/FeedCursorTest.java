@@ -0,0 +1,62 @@
+package com.openclassrooms.mddapi.dto;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@link FeedCursor} tokens decode to the position they were encoded from.
+ */
+class FeedCursorTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "2024-01-01T00:00",
+            "2024-02-29T13:45:07",
+            "2024-12-31T23:59:59.123456789"
+    })
+    void decodesWhatItEncodes(String createdAt) {
+
+        FeedCursor cursor = new FeedCursor(LocalDateTime.parse(createdAt), 42L);
+
+        FeedCursor decoded = FeedCursor.decode(cursor.encode());
+
+        assertEquals(cursor.getCreatedAt(), decoded.getCreatedAt());
+        assertEquals(42L, decoded.getId());
+    }
+
+    @Test
+    void encodesUrlSafeTokens() {
+
+        String token = new FeedCursor(LocalDateTime.parse("2024-12-31T23:59:59.999"), Long.MAX_VALUE).encode();
+
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"not a token!", "2024-01-01T00:00|1"})
+    void rejectsTokensThatAreNotBase64(String token) {
+        assertInvalid(token);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "garbage", "2024-01-01T00:00|", "2024-01-01|1", "2024-01-01T00:00|one"})
+    void rejectsMalformedPositions(String raw) {
+        assertInvalid(Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static void assertInvalid(String token) {
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> FeedCursor.decode(token));
+
+        assertEquals("Invalid cursor", e.getMessage());
+    }
+}
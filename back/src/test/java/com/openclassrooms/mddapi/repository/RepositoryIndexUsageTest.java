@@ -0,0 +1,146 @@
+package com.openclassrooms.mddapi.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks that the hot repository queries are served by an index.
+ *
+ * <p>
+ * The schema is created by the Flyway migrations. Each query is run once to record
+ * the SQL generated by Hibernate (see {@link SqlCapture}), then the plan of that SQL
+ * is read with {@code EXPLAIN}: a plan reading a table without an index condition
+ * fails the test.
+ * </p>
+ */
+@SpringBootTest
+class RepositoryIndexUsageTest {
+
+    private static final PageRequest PAGE = PageRequest.of(0, 20);
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    /**
+     * Table access without condition in an H2 plan: a table scan ({@code public.articles.tableScan})
+     * or a full index scan. Indexed accesses are followed by their condition
+     * ({@code public.idx_articles_topic_created: topic_id = ?1}).
+     */
+    private static final Pattern FULL_SCAN = Pattern.compile("/\\* [\\w$]+\\.[\\w$.]+ \\*/");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @Autowired
+    private UserTopicRepository userTopicRepository;
+
+    @Autowired
+    private TimelineEntryRepository timelineEntryRepository;
+
+    @Autowired
+    private RefreshSessionRepository refreshSessionRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void articleQueriesUseIndexes() throws SQLException {
+        assertIndexed(() -> articleRepository.findFeedFirstPage(List.of(1L, 2L), PAGE));
+        assertIndexed(() -> articleRepository.findFeedPageAfter(List.of(1L, 2L), NOW, 1L, PAGE));
+        assertIndexed(() -> articleRepository.findSummariesByIdIn(List.of(1L, 2L)));
+        assertIndexed(() -> articleRepository.findActivitySince(1L, NOW));
+        assertIndexed(() -> articleRepository.findDtoById(1L));
+    }
+
+    @Test
+    void commentQueriesUseIndexes() throws SQLException {
+        assertIndexed(() -> commentRepository.countByArticleId(1L));
+        assertIndexed(() -> commentRepository.findFirstPage(1L, PAGE));
+        assertIndexed(() -> commentRepository.findPageAfter(1L, NOW, 1L, PAGE));
+    }
+
+    @Test
+    void subscriptionQueriesUseIndexes() throws SQLException {
+        assertIndexed(() -> userTopicRepository.findTopicIdsByUserId(1L));
+        assertIndexed(() -> userTopicRepository.existsByUserIdAndTopicId(1L, 1L));
+        assertIndexed(() -> userTopicRepository.countByTopicId(1L));
+        assertIndexed(() -> userTopicRepository.findSubscriberIdsAfter(1L, 0L, PAGE));
+        assertIndexed(() -> userTopicRepository.findTopicIdsWithMinSubscribers(List.of(1L, 2L), 10L));
+    }
+
+    @Test
+    void timelineQueriesUseIndexes() throws SQLException {
+        assertIndexed(() -> timelineEntryRepository.findFirstPage(1L, PAGE));
+        assertIndexed(() -> timelineEntryRepository.findPageAfter(1L, NOW, 1L, PAGE));
+    }
+
+    @Test
+    void authenticationQueriesUseIndexes() throws SQLException {
+        assertIndexed(() -> userRepository.findByEmail("user@example.com"));
+        assertIndexed(() -> refreshSessionRepository.findByTokenHash("hash"));
+        assertIndexed(() -> refreshSessionRepository.findActiveIdsByUserId(1L));
+        assertIndexed(() -> refreshSessionRepository.findIdsRevokedSince(NOW));
+    }
+
+    /**
+     * Runs a query and asserts that every statement it executed reads its tables through
+     * an index condition: neither a table scan nor a full index scan.
+     */
+    private void assertIndexed(Runnable query) throws SQLException {
+
+        SqlCapture.start();
+        List<String> statements;
+        try {
+            query.run();
+        } finally {
+            statements = SqlCapture.stop();
+        }
+
+        assertFalse(statements.isEmpty(), "No statement recorded");
+
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertFalse(FULL_SCAN.matcher(plan).find(), () -> "Full scan in:\n" + plan);
+        }
+    }
+
+    /**
+     * Returns the plan of a statement, its parameters bound to {@code null}.
+     */
+    private String explain(String sql) throws SQLException {
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+
+            int parameters = statement.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                statement.setObject(i, null);
+            }
+
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    plan.append(rows.getString(1)).append('\n');
+                }
+            }
+            return plan.toString();
+        }
+    }
+}
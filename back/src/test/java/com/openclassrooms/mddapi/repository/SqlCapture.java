@@ -0,0 +1,45 @@
+package com.openclassrooms.mddapi.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statement inspector recording the SQL generated by Hibernate on the current thread.
+ *
+ * <p>
+ * Nothing is recorded outside of {@link #start()} and {@link #stop()}.
+ * </p>
+ */
+public class SqlCapture implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = new ThreadLocal<>();
+
+    /**
+     * Starts recording the statements of the current thread.
+     */
+    public static void start() {
+        STATEMENTS.set(new ArrayList<>());
+    }
+
+    /**
+     * Stops recording and returns the statements recorded since {@link #start()}.
+     *
+     * @return the recorded SQL statements, in execution order
+     */
+    public static List<String> stop() {
+        List<String> statements = STATEMENTS.get();
+        STATEMENTS.remove();
+        return statements == null ? List.of() : statements;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = STATEMENTS.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+}
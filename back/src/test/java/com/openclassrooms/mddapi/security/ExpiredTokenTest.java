@@ -0,0 +1,60 @@
+package com.openclassrooms.mddapi.security;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that a protected endpoint answers HTTP 401, the status on which the client
+ * refreshes its access token, when the token is expired or missing.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ExpiredTokenTest {
+
+    /**
+     * Same secret as {@link JwtService}, so that only the expiration makes the token invalid.
+     */
+    private static final String SECRET =
+            "thisIsASecretKeyForJwtThatMustBeVeryLongAndSecure123456";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void expiredTokenIsUnauthorized() throws Exception {
+
+        long now = System.currentTimeMillis();
+        String token = Jwts.builder()
+                .setSubject("1")
+                .claim("username", "user")
+                .claim("email", "user@example.com")
+                .claim("ver", 0)
+                .claim("sid", "session")
+                .setIssuedAt(new Date(now - 3_600_000))
+                .setExpiration(new Date(now - 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)),
+                        SignatureAlgorithm.HS256)
+                .compact();
+
+        mockMvc.perform(get("/topics").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void missingTokenIsUnauthorized() throws Exception {
+        mockMvc.perform(get("/topics"))
+                .andExpect(status().isUnauthorized());
+    }
+}
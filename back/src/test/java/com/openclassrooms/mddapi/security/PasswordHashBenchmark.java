@@ -0,0 +1,80 @@
+package com.openclassrooms.mddapi.security;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Benchmark of the BCrypt hashing cost on the current machine.
+ *
+ * <p>
+ * For each work factor, every core hashes passwords in parallel for a fixed number
+ * of rounds. The report gives the time of one hash and the number of hashes per second,
+ * per core and for the whole machine, which bounds the login capacity of a node.
+ * </p>
+ *
+ * <p>
+ * Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.openclassrooms.mddapi.security.PasswordHashBenchmark \
+ *     -Dexec.args="10 14 20"
+ * </pre>
+ * The arguments are the lowest and highest work factors, then the number of hashes per core.
+ * </p>
+ */
+public final class PasswordHashBenchmark {
+
+    private PasswordHashBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+
+        int minStrength = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int maxStrength = args.length > 1 ? Integer.parseInt(args[1]) : 13;
+        int hashesPerCore = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        System.out.printf("%d cores, %d hashes per core%n", cores, hashesPerCore);
+        System.out.printf("%-8s %12s %16s %16s%n", "strength", "ms/hash", "hashes/s/core", "hashes/s/node");
+
+        ExecutorService executor = Executors.newFixedThreadPool(cores);
+
+        try {
+            for (int strength = minStrength; strength <= maxStrength; strength++) {
+
+                BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+                encoder.encode("warm-up");
+
+                List<Future<Long>> workers = new ArrayList<>();
+
+                for (int core = 0; core < cores; core++) {
+                    workers.add(executor.submit(() -> {
+                        long start = System.nanoTime();
+                        for (int i = 0; i < hashesPerCore; i++) {
+                            encoder.encode("benchmark-password-" + i);
+                        }
+                        return System.nanoTime() - start;
+                    }));
+                }
+
+                long totalNanos = 0;
+
+                for (Future<Long> worker : workers) {
+                    totalNanos += worker.get();
+                }
+
+                double millisPerHash = totalNanos / 1_000_000.0 / (cores * (double) hashesPerCore);
+                double perCore = 1000.0 / millisPerHash;
+
+                System.out.printf("%-8d %12.1f %16.1f %16.1f%n", strength, millisPerHash, perCore, perCore * cores);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
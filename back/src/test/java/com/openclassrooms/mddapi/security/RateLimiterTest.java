@@ -0,0 +1,154 @@
+package com.openclassrooms.mddapi.security;
+
+import com.openclassrooms.mddapi.config.RateLimitProperties;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the GCRA token buckets of the {@link RateLimiter}.
+ *
+ * <p>
+ * Rules refilled once per minute are used wherever the test must not see a refill.
+ * </p>
+ */
+class RateLimiterTest {
+
+    @Test
+    void acceptsABurstUpToTheCapacity() {
+
+        RateLimiter limiter = limiter(100_000, 3, 1);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("rule", "client"));
+        }
+
+        long retryAfter = limiter.tryAcquire("rule", "client");
+
+        // The next token comes one minute after the first request.
+        assertTrue(retryAfter >= 59 && retryAfter <= 60, "retry after " + retryAfter);
+    }
+
+    @Test
+    void keepsOneBucketPerRuleAndKey() {
+
+        RateLimitProperties properties = properties(100_000);
+        properties.getRules().put("first", rule(1, 1));
+        properties.getRules().put("second", rule(1, 1));
+        RateLimiter limiter = new RateLimiter(properties);
+
+        assertEquals(0, limiter.tryAcquire("first", "client"));
+        assertTrue(limiter.tryAcquire("first", "client") > 0);
+
+        assertEquals(0, limiter.tryAcquire("first", "other"));
+        assertEquals(0, limiter.tryAcquire("second", "client"));
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() throws InterruptedException {
+
+        // One token every 100 ms.
+        RateLimiter limiter = limiter(100_000, 1, 600);
+
+        assertEquals(0, limiter.tryAcquire("rule", "client"));
+        assertEquals(1, limiter.tryAcquire("rule", "client"));
+
+        Thread.sleep(150);
+
+        assertEquals(0, limiter.tryAcquire("rule", "client"));
+    }
+
+    @Test
+    void ignoresDisabledLimitingUnknownRulesAndMissingKeys() {
+
+        RateLimitProperties properties = properties(100_000);
+        properties.setEnabled(false);
+        properties.getRules().put("rule", rule(1, 1));
+        RateLimiter disabled = new RateLimiter(properties);
+
+        RateLimiter limiter = limiter(100_000, 1, 1);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, disabled.tryAcquire("rule", "client"));
+            assertEquals(0, limiter.tryAcquire("unknown", "client"));
+            assertEquals(0, limiter.tryAcquire("rule", null));
+        }
+    }
+
+    @Test
+    void acquireThrowsWithRetryAfter() {
+
+        RateLimiter limiter = limiter(100_000, 1, 1);
+
+        assertDoesNotThrow(() -> limiter.acquire("rule", "client"));
+
+        RateLimitExceededException exceeded = assertThrows(RateLimitExceededException.class,
+                () -> limiter.acquire("rule", "client"));
+
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, exceeded.getStatus());
+        assertEquals("60", exceeded.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+    }
+
+    @Test
+    void capsTheBucketsAndEvictsTheOldest() {
+
+        // One bucket per stripe.
+        RateLimiter limiter = limiter(16, 1, 1);
+
+        assertEquals(0, limiter.tryAcquire("rule", "client"));
+        assertTrue(limiter.tryAcquire("rule", "client") > 0);
+
+        for (int i = 0; i < 1000; i++) {
+            limiter.tryAcquire("rule", "flood-" + i);
+        }
+
+        assertTrue(limiter.size() <= 16, "size " + limiter.size());
+        // Its bucket was evicted by a newer one: the client starts again with a full bucket.
+        assertEquals(0, limiter.tryAcquire("rule", "client"));
+    }
+
+    @Test
+    void evictsOnlyRefilledBuckets() throws InterruptedException {
+
+        RateLimitProperties properties = properties(100_000);
+        // One token every 10 ms.
+        properties.getRules().put("fast", rule(1, 6000));
+        properties.getRules().put("slow", rule(1, 1));
+        RateLimiter limiter = new RateLimiter(properties);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire("fast", "client-" + i);
+        }
+        limiter.tryAcquire("slow", "client");
+
+        Thread.sleep(50);
+        limiter.evictIdleBuckets();
+
+        assertEquals(1, limiter.size());
+        assertTrue(limiter.tryAcquire("slow", "client") > 0);
+    }
+
+    private static RateLimiter limiter(int maxBuckets, int capacity, int perMinute) {
+        RateLimitProperties properties = properties(maxBuckets);
+        properties.getRules().put("rule", rule(capacity, perMinute));
+        return new RateLimiter(properties);
+    }
+
+    private static RateLimitProperties properties(int maxBuckets) {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setMaxBuckets(maxBuckets);
+        return properties;
+    }
+
+    private static RateLimitProperties.Rule rule(int capacity, int perMinute) {
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setCapacity(capacity);
+        rule.setPerMinute(perMinute);
+        return rule;
+    }
+}
@@ -0,0 +1,245 @@
+package com.openclassrooms.mddapi.service;
+
+import com.openclassrooms.mddapi.cache.VersionCounters;
+import com.openclassrooms.mddapi.event.CommentCreatedEvent;
+import com.openclassrooms.mddapi.model.Comment;
+import com.openclassrooms.mddapi.repository.CommentRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Checks the durability modes of the {@link CommentWriter} and its write-behind queue,
+ * against a repository that records the batches it is given.
+ */
+class CommentWriterTest {
+
+    private static final long TIMEOUT_SECONDS = 5;
+
+    private final CommentRepository commentRepository = mock(CommentRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    /**
+     * Batches given to {@link CommentRepository#insertAll}, failed ones included.
+     */
+    private final List<List<Long>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    private CommentWriter writer;
+
+    @AfterEach
+    void stopWriter() throws InterruptedException {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void syncWritesOnTheCallingThread() {
+
+        recordBatches(null, null, null);
+        writer = writer(CommentWriter.SYNC, 10, 10, 0);
+
+        CompletableFuture<Void> written = writer.write(comment(1L), event());
+
+        assertFalse(writer.isWriteBehind());
+        assertFalse(writer.isAsync());
+        assertTrue(written.isDone());
+        assertEquals(List.of(List.of(1L)), batches);
+    }
+
+    @Test
+    void groupCommitCompletesOnceCommitted() throws Exception {
+
+        recordBatches(null, null, null);
+        writer = writer(CommentWriter.GROUP_COMMIT, 10, 10, 0);
+
+        assertTrue(writer.isWriteBehind());
+        assertFalse(writer.isAsync());
+
+        writer.write(comment(1L), event()).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(List.of(List.of(1L)), batches);
+    }
+
+    @Test
+    void asyncIsWrittenBehindTheRequest() throws Exception {
+
+        recordBatches(null, null, null);
+        writer = writer(CommentWriter.ASYNC, 10, 10, 0);
+
+        assertTrue(writer.isWriteBehind());
+        assertTrue(writer.isAsync());
+
+        writer.write(comment(1L), event()).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+
+        assertEquals(List.of(List.of(1L)), batches);
+    }
+
+    @Test
+    void unknownDurabilityIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> writer("eventually", 10, 10, 0));
+    }
+
+    @Test
+    void failedBatchFallsBackToSingleInserts() throws Exception {
+
+        recordBatches(2L, null, null);
+        // Lingers long enough for the three comments to share one batch.
+        writer = writer(CommentWriter.GROUP_COMMIT, 10, 3, 2000);
+
+        CompletableFuture<Void> first = writer.write(comment(1L), event());
+        CompletableFuture<Void> faulty = writer.write(comment(2L), event());
+        CompletableFuture<Void> third = writer.write(comment(3L), event());
+
+        first.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        third.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        ExecutionException failure = assertThrows(ExecutionException.class,
+                () -> faulty.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        assertTrue(failure.getCause() instanceof DataIntegrityViolationException);
+        assertEquals(List.of(
+                List.of(1L, 2L, 3L),
+                List.of(1L),
+                List.of(2L),
+                List.of(3L)
+        ), batches);
+    }
+
+    @Test
+    void fullQueueIsRejectedWithRetryAfter() throws Exception {
+
+        CountDownLatch inserting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        recordBatches(null, inserting, release);
+        writer = writer(CommentWriter.GROUP_COMMIT, 1, 1, 0);
+
+        CompletableFuture<Void> blocked = writer.write(comment(1L), event());
+        assertTrue(inserting.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> queued = writer.write(comment(2L), event());
+
+        CommentQueueFullException rejected = assertThrows(CommentQueueFullException.class,
+                () -> writer.write(comment(3L), event()));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatus());
+        assertEquals("7", rejected.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+        release.countDown();
+        blocked.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        queued.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void stopWritesTheQueuedComments() throws Exception {
+
+        CountDownLatch inserting = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        recordBatches(null, inserting, release);
+        writer = writer(CommentWriter.ASYNC, 10, 1, 0);
+
+        List<CompletableFuture<Void>> written = new ArrayList<>();
+        written.add(writer.write(comment(1L), event()));
+        assertTrue(inserting.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+
+        for (long id = 2; id <= 4; id++) {
+            written.add(writer.write(comment(id), event()));
+        }
+
+        Thread stopping = new Thread(() -> {
+            try {
+                writer.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        stopping.start();
+
+        release.countDown();
+        stopping.join(TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS));
+
+        assertFalse(stopping.isAlive());
+        assertTrue(written.stream().allMatch(future -> future.isDone() && !future.isCompletedExceptionally()));
+        assertEquals(List.of(List.of(1L), List.of(2L), List.of(3L), List.of(4L)), batches);
+
+        assertThrows(CommentQueueFullException.class, () -> writer.write(comment(5L), event()));
+    }
+
+    /**
+     * Records each batch, failing the ones containing {@code faultyId} when there is one.
+     * When {@code inserting} is given, the first batch signals it then waits for {@code release}.
+     */
+    private void recordBatches(Long faultyId, CountDownLatch inserting, CountDownLatch release) {
+        doAnswer(invocation -> {
+
+            List<Comment> comments = invocation.getArgument(0);
+            List<Long> ids = comments.stream().map(Comment::getId).toList();
+
+            batches.add(ids);
+
+            if (inserting != null && inserting.getCount() > 0) {
+                inserting.countDown();
+                release.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            }
+
+            if (faultyId != null && ids.contains(faultyId)) {
+                throw new DataIntegrityViolationException("Article deleted");
+            }
+
+            return null;
+        }).when(commentRepository).insertAll(anyList());
+    }
+
+    private CommentWriter writer(String durability, int queueCapacity, int batchSize, long lingerMillis) {
+
+        CommentWriter commentWriter = new CommentWriter(
+                commentRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                new VersionCounters(),
+                eventPublisher,
+                new SimpleMeterRegistry(),
+                durability,
+                queueCapacity,
+                batchSize,
+                lingerMillis,
+                7
+        );
+
+        commentWriter.start();
+
+        return commentWriter;
+    }
+
+    private static Comment comment(Long id) {
+        Comment comment = new Comment();
+        comment.setId(id);
+        return comment;
+    }
+
+    private static CommentCreatedEvent event() {
+        LocalDateTime now = LocalDateTime.now();
+        return new CommentCreatedEvent(1L, 1L, 1L, now, now);
+    }
+}
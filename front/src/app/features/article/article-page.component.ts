@@ -26,6 +26,8 @@ export class ArticleComponent implements OnInit {
   articleId!: number;
 
   comments: Comment[] = [];
+  commentCount = 0;
+  nextCommentsCursor: string | null = null;
   loading = false;
   error?: string;
 
@@ -54,6 +56,8 @@ export class ArticleComponent implements OnInit {
       next: (data: ArticleDetailResponse) => {
         this.article = data.article;
         this.comments = data.comments;
+        this.commentCount = data.commentCount;
+        this.nextCommentsCursor = data.nextCommentsCursor;
         this.loading = false;
       },
       error: () => {
@@ -63,6 +67,22 @@ export class ArticleComponent implements OnInit {
     });
   }
 
+  loadMoreComments(): void {
+    if (!this.nextCommentsCursor) {
+      return;
+    }
+
+    this.articleService.getComments(this.articleId, this.nextCommentsCursor).subscribe({
+      next: (page) => {
+        this.comments = this.comments.concat(page.comments);
+        this.nextCommentsCursor = page.nextCursor;
+      },
+      error: () => {
+        this.error = 'Erreur lors du chargement des commentaires';
+      }
+    });
+  }
+
   goBack(): void {
     this.location.back();
   }
@@ -84,6 +104,7 @@ export class ArticleComponent implements OnInit {
           authorName: 'Moi', 
           createdAt: new Date().toISOString()
         });
+        this.commentCount++;
 
         this.commentForm.reset();
       },
@@ -3,6 +3,13 @@ import { Article } from 'src/app/interfaces/articles.interface';
 export interface ArticleDetailResponse {
   article: Article;
   comments: Comment[];
+  commentCount: number;
+  nextCommentsCursor: string | null;
+}
+
+export interface CommentPage {
+  comments: Comment[];
+  nextCursor: string | null;
 }
 
 export interface Comment {
@@ -2,7 +2,7 @@ import { Component } from '@angular/core';
 import { Router } from '@angular/router';
 import { CommonModule } from '@angular/common';
 import { ArticleService } from '../../../services/article.service';
-import { Article } from '../../../interfaces/articles.interface';
+import { ArticleSummary } from '../../../interfaces/articles.interface';
 import { MainLayoutComponent } from '../../../layout/main-layout/main-layout.component';
 
 @Component({
@@ -21,8 +21,10 @@ export class ArticlesComponent {
     private articleService: ArticleService
   ) {}
   
-  articles: Article[] = [];
+  articles: ArticleSummary[] = [];
+  nextCursor: string | null = null;
   loading = false;
+  loadingMore = false;
   error?: string;
 
   sortOrder: 'desc' | 'asc' = 'desc';
@@ -35,9 +37,10 @@ export class ArticlesComponent {
     this.loading = true;
     this.error = undefined;
 
-    this.articleService.getAll().subscribe({
-      next: (data) => {
-        this.articles = data;
+    this.articleService.getFeed().subscribe({
+      next: (page) => {
+        this.articles = page.articles;
+        this.nextCursor = page.nextCursor;
         this.loading = false;
       },
       error: (err) => {
@@ -46,7 +49,27 @@ export class ArticlesComponent {
       }
     });
   }
-  goToArticle(article: Article): void {
+
+  loadMoreArticles(): void {
+    if (!this.nextCursor || this.loadingMore) {
+      return;
+    }
+
+    this.loadingMore = true;
+
+    this.articleService.getFeed(this.nextCursor).subscribe({
+      next: (page) => {
+        this.articles = this.articles.concat(page.articles);
+        this.nextCursor = page.nextCursor;
+        this.loadingMore = false;
+      },
+      error: () => {
+        this.error = 'Erreur lors du chargement des articles';
+        this.loadingMore = false;
+      }
+    });
+  }
+  goToArticle(article: ArticleSummary): void {
   this.router.navigate(
     ['/articles', article.id],
     {
@@ -57,7 +80,7 @@ export class ArticlesComponent {
   goToCreateArticle(): void {
     this.router.navigate(['/articles/new']);
   }
-  get sortedArticles(): Article[] {
+  get sortedArticles(): ArticleSummary[] {
     return [...this.articles].sort((a, b) => {
       const dateA = new Date(a.createdAt).getTime();
       const dateB = new Date(b.createdAt).getTime();
@@ -56,8 +56,7 @@ export class LoginComponent {
   this.authService.login(credentials).subscribe({
   next: (response) => {
 
-    localStorage.setItem('token', response.token);
-    localStorage.setItem('user', JSON.stringify(response.user));
+    this.authService.saveSession(response);
     this.router.navigate(['/articles']);
   },
 
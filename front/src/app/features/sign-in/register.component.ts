@@ -77,8 +77,7 @@ export class RegisterComponent implements OnInit {
       this.loading = false;
 
       if (response?.token) {
-        localStorage.setItem('token', response.token);
-        localStorage.setItem('user', JSON.stringify(response.user));
+        this.authService.saveSession(response);
       }
 
       this.router.navigate(['/login']);
@@ -33,6 +33,7 @@ export class ThemesComponent implements OnInit {
       next: (data) => {
         this.topics = data;
         this.loading = false;
+        this.loadStats();
       },
       error: () => {
         this.error = 'Erreur lors du chargement';
@@ -40,10 +41,26 @@ export class ThemesComponent implements OnInit {
       }
     });
   }
+  loadStats(): void {
+    this.topicService.getStats().subscribe({
+      next: (stats) => {
+        const byTopic = new Map(stats.map((s) => [s.topicId, s]));
+
+        this.topics.forEach((topic) => {
+          const s = byTopic.get(topic.id);
+
+          topic.subscriberCount = s?.subscriberCount ?? 0;
+          topic.articleCount = s?.articleCount ?? 0;
+          topic.lastActivityAt = s?.lastActivityAt ?? null;
+        });
+      }
+    });
+  }
   subscribe(topic: Topic): void {
     this.topicService.subscribe(topic.id).subscribe({
       next: () => {
         topic.subscribed = true;
+        topic.subscriberCount = (topic.subscriberCount ?? 0) + 1;
       },
       error: () => {
         this.error = 'Erreur lors de l’abonnement';
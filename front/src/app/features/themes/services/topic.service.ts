@@ -2,7 +2,7 @@ import { Injectable } from '@angular/core';
 import { HttpClient } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { environment } from 'src/environments/environment';
-import { Topic } from '../../../interfaces/topic.interface';
+import { Topic, TopicStats } from '../../../interfaces/topic.interface';
 
 @Injectable({
   providedIn: 'root'
@@ -21,6 +21,13 @@ export class TopicService {
       }
     });
   }
+  getStats(): Observable<TopicStats[]> {
+    return this.http.get<TopicStats[]>(`${this.apiTopicsUrl}/stats`, {
+      headers: {
+        Authorization: `Bearer ${localStorage.getItem('token')}`
+      }
+    });
+  }
   subscribe(topicId: number): Observable<void> {
     return this.http.post<void>(`${this.apiSubscriptionsUrl}/${topicId}`, {}, {
       headers: {
@@ -0,0 +1,43 @@
+import { Injectable } from '@angular/core';
+import {
+  HttpErrorResponse,
+  HttpEvent,
+  HttpHandler,
+  HttpInterceptor,
+  HttpRequest
+} from '@angular/common/http';
+import { Router } from '@angular/router';
+import { Observable, catchError, switchMap, throwError } from 'rxjs';
+
+import { AuthService } from '../services/auth.service';
+
+/**
+ * Renews the short-lived access token once when a request is rejected with 401,
+ * then replays the request with the new token.
+ */
+@Injectable()
+export class RefreshTokenInterceptor implements HttpInterceptor {
+
+  constructor(private authService: AuthService, private router: Router) {}
+
+  intercept(request: HttpRequest<unknown>, next: HttpHandler): Observable<HttpEvent<unknown>> {
+    return next.handle(request).pipe(
+      catchError((error: HttpErrorResponse) => {
+        if (error.status !== 401 || request.url.includes('/auth/') || !this.authService.hasRefreshToken()) {
+          return throwError(() => error);
+        }
+
+        return this.authService.refresh().pipe(
+          switchMap(response => next.handle(request.clone({
+            setHeaders: { Authorization: `Bearer ${response.token}` }
+          }))),
+          catchError(refreshError => {
+            this.authService.clearSession();
+            this.router.navigate(['/login']);
+            return throwError(() => refreshError);
+          })
+        );
+      })
+    );
+  }
+}
@@ -7,3 +7,18 @@ export interface Article {
   createdAt: string;
 }
 
+
+export interface ArticleSummary {
+  id: number;
+  title: string;
+  excerpt: string;
+  readingTimeMinutes: number;
+  authorName: string;
+  topicName: string;
+  createdAt: string;
+}
+
+export interface FeedPage {
+  articles: ArticleSummary[];
+  nextCursor: string | null;
+}
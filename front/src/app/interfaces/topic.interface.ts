@@ -3,4 +3,14 @@ export interface Topic {
   name: string;
   description: string;
   subscribed: boolean;
+  subscriberCount?: number;
+  articleCount?: number;
+  lastActivityAt?: string | null;
+}
+
+export interface TopicStats {
+  topicId: number;
+  subscriberCount: number;
+  articleCount: number;
+  lastActivityAt: string | null;
 }
@@ -1,9 +1,9 @@
 import { Injectable } from '@angular/core';
-import { HttpClient, HttpHeaders } from '@angular/common/http';
+import { HttpClient, HttpHeaders, HttpParams } from '@angular/common/http';
 import { Observable } from 'rxjs';
 import { environment } from 'src/environments/environment';
-import { Article } from '../interfaces/articles.interface';
-import { ArticleDetailResponse } from '../features/articles/interfaces/article-detail.interface';
+import { Article, FeedPage } from '../interfaces/articles.interface';
+import { ArticleDetailResponse, CommentPage } from '../features/articles/interfaces/article-detail.interface';
 import { CreateArticleRequest } from '../features/create-article/interfaces/create-article-request.interface';
 
 @Injectable({
@@ -24,9 +24,15 @@ export class ArticleService {
     });
   }
 
-  getAll(): Observable<Article[]> {
-    return this.http.get<Article[]>(this.apiUrl, {
-      headers: this.getAuthHeaders()
+  getFeed(cursor?: string): Observable<FeedPage> {
+    let params = new HttpParams();
+    if (cursor) {
+      params = params.set('cursor', cursor);
+    }
+
+    return this.http.get<FeedPage>(this.apiUrl, {
+      headers: this.getAuthHeaders(),
+      params
     });
   }
 
@@ -37,6 +43,16 @@ export class ArticleService {
     );
   }
 
+  getComments(articleId: number, after: string): Observable<CommentPage> {
+    return this.http.get<CommentPage>(
+      `${this.apiUrl}/${articleId}/comments`,
+      {
+        headers: this.getAuthHeaders(),
+        params: new HttpParams().set('after', after)
+      }
+    );
+  }
+
   addComment(articleId: number, content: string): Observable<Comment> {
     return this.http.post<Comment>(
       `${this.apiUrl}/${articleId}/comments`,
@@ -1,5 +1,5 @@
 import { Injectable } from '@angular/core';
-import { catchError } from 'rxjs/operators';
+import { catchError, finalize, shareReplay, tap } from 'rxjs/operators';
 import { Observable, throwError } from 'rxjs';
 import { HttpClient } from '@angular/common/http';
 
@@ -13,6 +13,8 @@ export class AuthService {
 
   private readonly apiUrl = `${environment.apiUrl}/auth`;
 
+  private refreshInProgress?: Observable<AuthResponse>;
+
   constructor(private http: HttpClient) {}
 
   login(payload: LoginRequest): Observable<AuthResponse> {
@@ -23,10 +25,47 @@ export class AuthService {
       );
   }
   logout(): void {
+    const refreshToken = localStorage.getItem('refreshToken');
+
+    if (refreshToken) {
+      this.http.post(`${this.apiUrl}/logout`, { refreshToken }).subscribe({ error: () => {} });
+    }
+
+    this.clearSession();
+  }
+
+  saveSession(response: AuthResponse): void {
+    localStorage.setItem('token', response.token);
+    localStorage.setItem('refreshToken', response.refreshToken);
+    localStorage.setItem('user', JSON.stringify(response.user));
+  }
+
+  clearSession(): void {
     localStorage.removeItem('token');
+    localStorage.removeItem('refreshToken');
     localStorage.removeItem('user');
   }
 
+  hasRefreshToken(): boolean {
+    return !!localStorage.getItem('refreshToken');
+  }
+
+  refresh(): Observable<AuthResponse> {
+    if (!this.refreshInProgress) {
+      this.refreshInProgress = this.http
+        .post<AuthResponse>(`${this.apiUrl}/refresh`, {
+          refreshToken: localStorage.getItem('refreshToken')
+        })
+        .pipe(
+          tap(response => this.saveSession(response)),
+          finalize(() => this.refreshInProgress = undefined),
+          shareReplay(1)
+        );
+    }
+
+    return this.refreshInProgress;
+  }
+
   isAuthenticated(): boolean {
     return !!localStorage.getItem('token');
   }